@@ -0,0 +1,93 @@
+package com.example.demo.bench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compare a JMH JSON result with a baseline result of the same benchmarks.
+ * Prints score and allocation deltas; exits with 1 when a score is more than
+ * threshold % worse (lower throughput / higher time).
+ *
+ * Usage: BaselineComparator baseline.json result.json [threshold%]
+ */
+public class BaselineComparator {
+
+    private static final String ALLOC = "gc.alloc.rate.norm";
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BaselineComparator <baseline.json> <result.json> [threshold%]");
+            System.exit(2);
+        }
+        File baselineFile = new File(args[0]);
+        if (!baselineFile.exists()) {
+            System.out.println("No baseline at " + baselineFile + ", copy the result there to create one");
+            return;
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10;
+
+        ObjectMapper mapper = new ObjectMapper();
+        Map<String, JsonNode> baseline = index(mapper.readTree(baselineFile));
+        Map<String, JsonNode> current = index(mapper.readTree(new File(args[1])));
+
+        int regressions = 0;
+        System.out.printf("%-70s %14s %14s %9s %12s%n", "benchmark", "baseline", "current", "delta", "alloc B/op");
+        for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+            JsonNode before = baseline.get(entry.getKey());
+            JsonNode after = entry.getValue();
+            double score = after.path("primaryMetric").path("score").asDouble();
+            String alloc = allocation(after);
+
+            if (before == null) {
+                System.out.printf("%-70s %14s %14.3f %9s %12s%n", entry.getKey(), "-", score, "new", alloc);
+                continue;
+            }
+
+            double base = before.path("primaryMetric").path("score").asDouble();
+            // Throughput: cao hơn là tốt, các mode khác (thời gian): thấp hơn là tốt
+            boolean higherIsBetter = "thrpt".equals(after.path("mode").asText());
+            double change = base == 0 ? 0 : (score - base) / base * 100;
+            double worse = higherIsBetter ? -change : change;
+            boolean regression = worse > threshold;
+            regressions += regression ? 1 : 0;
+
+            System.out.printf("%-70s %14.3f %14.3f %+8.1f%% %12s%s%n",
+                    entry.getKey(), base, score, change, alloc, regression ? "  REGRESSION" : "");
+        }
+
+        if (regressions > 0) {
+            System.out.println(regressions + " benchmark(s) more than " + threshold + "% worse than baseline");
+            System.exit(1);
+        }
+    }
+
+    // benchmark + mode + params → result
+    private static Map<String, JsonNode> index(JsonNode results) {
+        Map<String, JsonNode> byKey = new LinkedHashMap<>();
+        for (JsonNode result : results) {
+            StringBuilder key = new StringBuilder(result.path("benchmark").asText()
+                    .replace("com.example.demo.", ""))
+                    .append(" [").append(result.path("mode").asText()).append(']');
+            result.path("params").fields().forEachRemaining(param ->
+                    key.append(' ').append(param.getKey()).append('=').append(param.getValue().asText()));
+            byKey.put(key.toString(), result);
+        }
+        return byKey;
+    }
+
+    private static String allocation(JsonNode result) {
+        JsonNode secondary = result.path("secondaryMetrics");
+        for (var it = secondary.fieldNames(); it.hasNext(); ) {
+            String name = it.next();
+            if (name.endsWith(ALLOC)) {
+                return String.format("%.0f", secondary.path(name).path("score").asDouble());
+            }
+        }
+        return "-";
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.demo.bench;
+
+import com.example.demo.config.ApiConfigRegistry;
+import com.example.demo.extractor.JsonStreamExtractor;
+import com.example.demo.extractor.SourceExtractor;
+import com.example.demo.extractor.XmlPathExtractor;
+import com.example.demo.util.Util;
+import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parse + JsonPath / fields extraction of the fixture payloads, per source shape
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExtractionBenchmark {
+
+    private static final String CONTINENTS_PATH =
+            "$.Body.ListOfContinentsByNameResponse.ListOfContinentsByNameResult.tContinent";
+
+    @Param({"1000", "10000"})
+    private int rowCount;
+
+    private ApiConfigRegistry.Source userDto;
+    private SourceExtractor userDtoExtractor;
+    private SourceExtractor cartsExtractor;
+    private SourceExtractor continentsExtractor;
+    private XmlPathExtractor continentsStax;
+    private SourceExtractor rowsExtractor;
+    private SourceExtractor companyExtractor;
+    private JsonStreamExtractor companyStream;
+
+    private byte[] continentsXml;
+    private byte[] userJson;
+    private XmlMapper xmlMapper;
+    private List<Map<String, Object>> rows;
+
+    @Setup
+    public void setup() {
+        userDto = source("$", fields(
+                "id", "$.id", "firstName", "$.firstName", "lastName", "$.lastName", "age", "$.age",
+                "mailAddress", "$.email", "hairColor", "$.hair.color", "country", "$.address.country"));
+        userDtoExtractor = SourceExtractor.compile(userDto);
+        cartsExtractor = SourceExtractor.compile(source("$.carts[?(@.total > 1500)]", null));
+        continentsExtractor = SourceExtractor.compile(source(CONTINENTS_PATH, null));
+        continentsStax = XmlPathExtractor.compile(CONTINENTS_PATH);
+        rowsExtractor = SourceExtractor.compile(source("$", fields(
+                "id", "$.id", "email", "$.email", "total", "$.total")));
+
+        companyExtractor = SourceExtractor.compile(source("$.company", null));
+        companyStream = JsonStreamExtractor.compile("$.company");
+
+        continentsXml = Fixtures.CONTINENTS_XML.getBytes(StandardCharsets.UTF_8);
+        userJson = Fixtures.USER_JSON.getBytes(StandardCharsets.UTF_8);
+        xmlMapper = new XmlMapper();
+        rows = Fixtures.rows(rowCount);
+    }
+
+    @Benchmark
+    public Object utilExtractByJsonPath() {
+        return Util.extractByJsonPath(Fixtures.USER_JSON, userDto);
+    }
+
+    @Benchmark
+    public Object userFields() {
+        return userDtoExtractor.extract(Fixtures.USER_JSON);
+    }
+
+    @Benchmark
+    public Object cartsFilter() {
+        return cartsExtractor.extract(Fixtures.CARTS_JSON);
+    }
+
+    // Body là byte (như BoundedResponseProcessor đọc từ connection), chỉ $.company được materialize
+    @Benchmark
+    public Object companyStream() {
+        return companyExtractor.project(companyStream.extract(new ByteArrayInputStream(userJson)));
+    }
+
+    @Benchmark
+    public Object companyFullParse() {
+        return companyExtractor.extractFrom(JsonStreamExtractor.parse(new ByteArrayInputStream(userJson)));
+    }
+
+    @Benchmark
+    public Object continentsStax() {
+        return continentsExtractor.project(continentsStax.extract(new ByteArrayInputStream(continentsXml)));
+    }
+
+    @Benchmark
+    public Object continentsJacksonTree() throws Exception {
+        return continentsExtractor.extractFrom(xmlMapper.readValue(continentsXml, Map.class));
+    }
+
+    @Benchmark
+    public Object dbRowsProjection() {
+        return rowsExtractor.extractFrom(rows);
+    }
+
+    private static ApiConfigRegistry.Source source(String path, Map<String, String> fields) {
+        ApiConfigRegistry.Source source = new ApiConfigRegistry.Source();
+        source.setType("rest");
+        source.setPath(path);
+        source.setFields(fields);
+        return source;
+    }
+
+    private static Map<String, String> fields(String... pairs) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        for (int i = 0; i < pairs.length; i += 2) {
+            fields.put(pairs[i], pairs[i + 1]);
+        }
+        return fields;
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.demo.bench;
+
+import com.example.demo.DemoApplication;
+import com.example.demo.exception.ApiAggregationException;
+import com.example.demo.service.ApiAggregationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full aggregation against the in-process StubBackend and an H2 database
+ * (bench-application.yaml): the engine overhead on top of the backends.
+ * aggregate: service call, http: through the Camel servlet route incl. JSON marshalling,
+ * failure: required source fails → 502 path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(8)
+@Fork(1)
+public class FanOutBenchmark {
+
+    private static final String H2_URL = "jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1";
+
+    private StubBackend backend;
+    private ConfigurableApplicationContext context;
+    private ApiAggregationService service;
+    private HttpClient http;
+    private URI demoUri;
+
+    @Setup(Level.Trial)
+    public void start() throws Exception {
+        backend = new StubBackend();
+        createOrders();
+
+        context = new SpringApplicationBuilder(DemoApplication.class)
+                .properties(
+                        "spring.config.location=classpath:bench-application.yaml",
+                        "bench.stub-port=" + backend.port(),
+                        "bench.h2-url=" + H2_URL)
+                .run();
+        service = context.getBean(ApiAggregationService.class);
+
+        String port = context.getEnvironment().getProperty("local.server.port");
+        http = HttpClient.newHttpClient();
+        demoUri = URI.create("http://127.0.0.1:" + port + "/camel/demo/1");
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+        backend.close();
+    }
+
+    @Benchmark
+    public Map<String, Object> aggregate() {
+        return service.aggregateApis("demo", Map.of("id", "1"));
+    }
+
+    @Benchmark
+    public Object failure() {
+        try {
+            return service.aggregateApis("failing", Map.of("id", "1"));
+        } catch (ApiAggregationException e) {
+            return e.describe();
+        }
+    }
+
+    @Benchmark
+    public String http() throws Exception {
+        return http.send(HttpRequest.newBuilder(demoUri).GET().build(), HttpResponse.BodyHandlers.ofString()).body();
+    }
+
+    private static void createOrders() throws Exception {
+        try (Connection connection = DriverManager.getConnection(H2_URL, "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS orders (id BIGINT PRIMARY KEY, user_id BIGINT, "
+                    + "total DECIMAL(10, 2), status VARCHAR(16))");
+            statement.execute("DELETE FROM orders");
+            for (int i = 0; i < 500; i++) {
+                statement.addBatch("INSERT INTO orders VALUES (" + i + ", " + (i % 10) + ", " + (i * 7 % 1000) + ".50, '"
+                        + (i % 3 == 0 ? "PAID" : "OPEN") + "')");
+            }
+            statement.executeBatch();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.demo.bench;
+
+import org.springframework.util.LinkedCaseInsensitiveMap;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Payload fixtures shaped like the real backends: dummyjson user / carts,
+ * the CountryInfoService continents SOAP response and DB row lists
+ */
+public final class Fixtures {
+
+    public static final String USER_JSON = read("fixtures/user.json");
+    public static final String CARTS_JSON = read("fixtures/carts.json");
+    public static final String CONTINENTS_XML = read("fixtures/continents.xml");
+
+    private Fixtures() {
+    }
+
+    /**
+     * Rows the way camel-sql / ColumnMapRowMapper return them (case-insensitive column maps)
+     */
+    public static List<Map<String, Object>> rows(int count) {
+        List<Map<String, Object>> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Map<String, Object> row = new LinkedCaseInsensitiveMap<>(8);
+            row.put("ID", (long) i);
+            row.put("USER_ID", (long) (i % 100));
+            row.put("FIRST_NAME", "Emily" + i);
+            row.put("LAST_NAME", "Johnson");
+            row.put("EMAIL", "user" + i + "@x.dummyjson.com");
+            row.put("TOTAL", BigDecimal.valueOf(i * 13L, 2));
+            row.put("STATUS", i % 3 == 0 ? "PAID" : "OPEN");
+            row.put("CREATED_AT", new Timestamp(1_700_000_000_000L + i * 60_000L));
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private static String read(String resource) {
+        try (InputStream in = Fixtures.class.getClassLoader().getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing fixture " + resource);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
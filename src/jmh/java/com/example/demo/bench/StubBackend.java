@@ -0,0 +1,50 @@
+package com.example.demo.bench;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+
+/**
+ * In-process backend serving the fixtures, so benchmarks measure the engine and not the network:
+ * GET /users/{id}, GET /carts/user/{id}, POST /soap (continents), GET /fail (503)
+ */
+public class StubBackend implements AutoCloseable {
+
+    private final HttpServer server;
+
+    public StubBackend() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 512);
+        server.createContext("/users/", exchange -> respond(exchange, 200, "application/json", Fixtures.USER_JSON));
+        server.createContext("/carts/user/", exchange -> respond(exchange, 200, "application/json", Fixtures.CARTS_JSON));
+        server.createContext("/soap", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            respond(exchange, 200, "text/xml; charset=utf-8", Fixtures.CONTINENTS_XML);
+        });
+        server.createContext("/fail", exchange -> respond(exchange, 503, "text/plain", "unavailable"));
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.start();
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    private static void respond(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
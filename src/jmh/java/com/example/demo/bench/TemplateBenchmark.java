@@ -0,0 +1,69 @@
+package com.example.demo.bench;
+
+import com.example.demo.template.SoapEnvelopeTemplate;
+import com.example.demo.template.SqlQueryTemplate;
+import com.example.demo.template.UrlTemplate;
+import com.example.demo.util.Util;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-call cost of resolving URL / SOAP / SQL templates: the one-off Util.resolveTemplate
+ * against the templates compiled once in the plans
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TemplateBenchmark {
+
+    private static final String URL = "https://dummyjson.com/carts/user/{id}?limit={limit}&skip={skip}";
+    private static final String ENVELOPE = """
+            <soap:Envelope xmlns:soap="http://schemas.xmlsoap.org/soap/envelope/">
+              <soap:Body>
+                <CountryName xmlns="http://www.oorsprong.org/websamples.countryinfo">
+                  <sCountryISOCode>{country}</sCountryISOCode>
+                </CountryName>
+              </soap:Body>
+            </soap:Envelope>""";
+    private static final String QUERY = "SELECT * FROM orders WHERE user_id = {id} AND status = '{status}'";
+
+    private final Map<String, String> variables = Map.of(
+            "id", "42", "limit", "10", "skip", "0", "country", "VN", "status", "PAID");
+
+    private final UrlTemplate url = UrlTemplate.compile(URL);
+    private final SoapEnvelopeTemplate envelope = SoapEnvelopeTemplate.compile(ENVELOPE);
+    private final SqlQueryTemplate query = SqlQueryTemplate.compile(QUERY, null);
+
+    @Benchmark
+    public String utilResolveTemplate() {
+        return Util.resolveTemplate(URL, variables);
+    }
+
+    @Benchmark
+    public String urlTemplate() {
+        return url.resolve(variables);
+    }
+
+    @Benchmark
+    public String soapEnvelope() {
+        return envelope.render(variables);
+    }
+
+    @Benchmark
+    public Map<String, Object> sqlBind() {
+        return query.bind(variables);
+    }
+}
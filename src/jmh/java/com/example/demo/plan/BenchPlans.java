@@ -0,0 +1,34 @@
+package com.example.demo.plan;
+
+import com.example.demo.config.ApiConfigRegistry;
+import com.example.demo.extractor.SourceExtractor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal group plans for benchmarks that need a GroupPlan without booting the registry
+ */
+public final class BenchPlans {
+
+    private BenchPlans() {
+    }
+
+    /**
+     * Group of REST sources s0..s(n-1), every other one optional
+     */
+    public static GroupPlan group(String name, int sourceCount) {
+        List<SourcePlan> sources = new ArrayList<>(sourceCount);
+        for (int i = 0; i < sourceCount; i++) {
+            ApiConfigRegistry.Source cfg = new ApiConfigRegistry.Source();
+            cfg.setType("rest");
+            cfg.setUrl("http://localhost/s" + i + "/{id}");
+            cfg.setPath("$");
+            cfg.setOptional(i % 2 == 1);
+
+            sources.add(new SourcePlan("s" + i, name + ".s" + i, cfg, SourceExtractor.compile(cfg),
+                    null, null, null, null, null, null, null, List.of(), List.of(), null));
+        }
+        return new GroupPlan(name, null, true, 0, 0, sources, sources);
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.demo.service;
+
+import com.example.demo.bench.Fixtures;
+import com.example.demo.dto.ApiCallResult;
+import com.example.demo.exception.ApiAggregationException;
+import com.example.demo.extractor.SourceExtractor;
+import com.example.demo.plan.BenchPlans;
+import com.example.demo.plan.GroupPlan;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Result assembly and the 502 error body, plus their JSON marshalling,
+ * for a group of sourceCount sources
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AssemblyBenchmark {
+
+    @Param({"5", "20"})
+    private int sourceCount;
+
+    private GroupPlan group;
+    private List<ApiCallResult> results;
+    private List<ApiCallResult> withFailures;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Setup
+    public void setup() {
+        group = BenchPlans.group("bench", sourceCount);
+        Object user = SourceExtractor.parse(Fixtures.USER_JSON);
+
+        results = new ArrayList<>();
+        withFailures = new ArrayList<>();
+        for (int i = 0; i < sourceCount; i++) {
+            String key = "s" + i;
+            String url = "http://localhost/s" + i + "/1";
+            results.add(new ApiCallResult(key, url, user, null));
+            // Optional source timeout, required source lỗi
+            withFailures.add(switch (i % 4) {
+                case 1 -> new ApiCallResult(key, url, null, new TimeoutException("Deadline of 1000 ms exceeded"), true);
+                case 2 -> new ApiCallResult(key, url, null, new RuntimeException("HTTP 503 when calling " + url));
+                default -> new ApiCallResult(key, url, user, null);
+            });
+        }
+    }
+
+    @Benchmark
+    public Map<String, Object> assemble() {
+        return ApiAggregationService.assemble(group, results);
+    }
+
+    @Benchmark
+    public byte[] assembleAndMarshal() throws Exception {
+        return mapper.writeValueAsBytes(ApiAggregationService.assemble(group, results));
+    }
+
+    @Benchmark
+    public byte[] failureBody() throws Exception {
+        try {
+            ApiAggregationService.assemble(group, withFailures);
+            throw new IllegalStateException("expected a failed required source");
+        } catch (ApiAggregationException e) {
+            return mapper.writeValueAsBytes(e.describe());
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.example.demo.loadtest;
+
+import com.example.demo.DemoApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * End-to-end load test: StubServer + H2 stand in for dummyjson / oorsprong / Postgres / Oracle,
+ * the application runs with loadtest-application.yaml, and a closed-model driver
+ * (loadtest.concurrency virtual threads, each sending its next request as soon as the last one completes)
+ * reports throughput and p50 / p99 / p999 per target after the warm-up.
+ * <p>
+ * mvn -Ploadtest package exec:exec@loadtest -Dloadtest.jvmArgs="-Dloadtest.concurrency=128 -Dapi.executor.max-concurrency=400"
+ */
+public class LoadTest {
+
+    private static final String POSTGRES_URL = "jdbc:h2:mem:pg;MODE=PostgreSQL;DB_CLOSE_DELAY=-1";
+    private static final String ORACLE_URL = "jdbc:h2:mem:ora;MODE=Oracle;DB_CLOSE_DELAY=-1";
+
+    public static void main(String[] args) throws Exception {
+        LoadTestSettings settings = new LoadTestSettings();
+
+        try (StubServer stub = new StubServer(settings)) {
+            int rows = settings.getInt("loadtest.db.rows");
+            createUsers(POSTGRES_URL, rows);
+            createUsers(ORACLE_URL, rows);
+
+            ConfigurableApplicationContext context = new SpringApplicationBuilder(DemoApplication.class)
+                    .properties(
+                            "spring.config.location=classpath:loadtest-application.yaml",
+                            "loadtest.stub-port=" + stub.port(),
+                            "loadtest.h2.postgres-url=" + POSTGRES_URL,
+                            "loadtest.h2.oracle-url=" + ORACLE_URL)
+                    .run();
+            try {
+                String port = context.getEnvironment().getProperty("local.server.port");
+                run(settings, "http://127.0.0.1:" + port);
+            } finally {
+                context.close();
+            }
+        }
+    }
+
+    private static void run(LoadTestSettings settings, String baseUrl) throws Exception {
+        List<String> targets = Arrays.stream(settings.get("loadtest.targets").split(";"))
+                .map(String::trim)
+                .filter(t -> !t.isEmpty())
+                .toList();
+        int concurrency = settings.getInt("loadtest.concurrency");
+        int ids = settings.getInt("loadtest.ids");
+        Duration timeout = settings.getDuration("loadtest.timeout");
+        Duration warmup = settings.getDuration("loadtest.warmup");
+        Duration duration = settings.getDuration("loadtest.duration");
+
+        HttpClient http = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        long measureFrom = System.nanoTime() + warmup.toNanos();
+        long measureTo = measureFrom + duration.toNanos();
+        System.out.printf("Load test: %d workers, targets %s, warm-up %s, duration %s%n",
+                concurrency, targets, warmup, duration);
+
+        List<Future<Recorder[]>> futures = new ArrayList<>();
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int w = 0; w < concurrency; w++) {
+                int first = w;
+                futures.add(workers.submit(() -> work(http, baseUrl, targets, first, ids, timeout, measureFrom, measureTo)));
+            }
+        }
+
+        Recorder[] merged = new Recorder[targets.size()];
+        for (int t = 0; t < targets.size(); t++) {
+            merged[t] = new Recorder();
+        }
+        for (Future<Recorder[]> future : futures) {
+            Recorder[] recorders = future.get();
+            for (int t = 0; t < targets.size(); t++) {
+                merged[t].addAll(recorders[t]);
+            }
+        }
+
+        double seconds = duration.toNanos() / 1e9;
+        System.out.printf("%n%-22s %9s %8s %9s %9s %9s %9s %9s  %s%n",
+                "target", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms", "status");
+        for (int t = 0; t < targets.size(); t++) {
+            merged[t].report(targets.get(t), seconds);
+        }
+    }
+
+    /**
+     * One closed-loop worker; targets are taken round-robin starting at its own offset
+     */
+    private static Recorder[] work(HttpClient http, String baseUrl, List<String> targets, int first, int ids,
+                                   Duration timeout, long measureFrom, long measureTo) {
+        Recorder[] recorders = new Recorder[targets.size()];
+        for (int t = 0; t < targets.size(); t++) {
+            recorders[t] = new Recorder();
+        }
+
+        for (int i = first; ; i++) {
+            long start = System.nanoTime();
+            if (start >= measureTo) {
+                return recorders;
+            }
+            int target = i % targets.size();
+            String path = targets.get(target)
+                    .replace("{id}", String.valueOf(ThreadLocalRandom.current().nextInt(1, ids + 1)));
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .timeout(timeout)
+                    .GET()
+                    .build();
+
+            int status;
+            try {
+                status = http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return recorders;
+            } catch (Exception e) {
+                // Timeout / connection lỗi phía client
+                status = 0;
+            }
+
+            // Request bắt đầu trong warm-up không được tính
+            if (start >= measureFrom) {
+                recorders[target].record(System.nanoTime() - start, status);
+            }
+        }
+    }
+
+    private static void createUsers(String url, int rows) throws Exception {
+        try (Connection connection = DriverManager.getConnection(url, "sa", "")) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("CREATE TABLE users (id INT PRIMARY KEY, first_name VARCHAR(50), "
+                        + "last_name VARCHAR(50), email VARCHAR(100), age INT, country VARCHAR(50))");
+            }
+            try (PreparedStatement insert = connection.prepareStatement("INSERT INTO users VALUES (?, ?, ?, ?, ?, ?)")) {
+                for (int id = 1; id <= rows; id++) {
+                    insert.setInt(1, id);
+                    insert.setString(2, "First" + id);
+                    insert.setString(3, "Last" + id);
+                    insert.setString(4, "user" + id + "@example.com");
+                    insert.setInt(5, 18 + id % 60);
+                    insert.setString(6, "Country" + id % 20);
+                    insert.addBatch();
+                    if (id % 1000 == 0) {
+                        insert.executeBatch();
+                    }
+                }
+                insert.executeBatch();
+            }
+        }
+    }
+
+    /**
+     * Latencies of one target, kept per worker in a growing long[] so recording is allocation-free
+     */
+    private static class Recorder {
+
+        private long[] latencies = new long[1024];
+        private int size;
+        private long errors;
+        private final Map<Integer, Long> statuses = new TreeMap<>();
+
+        void record(long nanos, int status) {
+            if (size == latencies.length) {
+                latencies = Arrays.copyOf(latencies, size * 2);
+            }
+            latencies[size++] = nanos;
+            if (status != 200) {
+                errors++;
+            }
+            statuses.merge(status, 1L, Long::sum);
+        }
+
+        void addAll(Recorder other) {
+            if (size + other.size > latencies.length) {
+                latencies = Arrays.copyOf(latencies, Math.max(latencies.length * 2, size + other.size));
+            }
+            System.arraycopy(other.latencies, 0, latencies, size, other.size);
+            size += other.size;
+            errors += other.errors;
+            other.statuses.forEach((status, count) -> statuses.merge(status, count, Long::sum));
+        }
+
+        void report(String target, double seconds) {
+            long[] sorted = Arrays.copyOf(latencies, size);
+            Arrays.sort(sorted);
+            System.out.printf("%-22s %9d %8d %9.1f %9.1f %9.1f %9.1f %9.1f  %s%n",
+                    target, size, errors, size / seconds,
+                    percentile(sorted, 0.50), percentile(sorted, 0.99), percentile(sorted, 0.999),
+                    size == 0 ? 0 : sorted[size - 1] / 1e6, statuses);
+        }
+
+        // Nearest-rank, ms
+        private static double percentile(long[] sorted, double p) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(p * sorted.length);
+            return sorted[Math.max(0, rank - 1)] / 1e6;
+        }
+    }
+}
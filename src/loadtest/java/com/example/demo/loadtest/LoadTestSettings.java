@@ -0,0 +1,59 @@
+package com.example.demo.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Properties;
+
+/**
+ * loadtest.properties overridden by -D system properties
+ */
+public class LoadTestSettings {
+
+    private final Properties properties = new Properties();
+
+    public LoadTestSettings() {
+        try (InputStream in = LoadTestSettings.class.getClassLoader().getResourceAsStream("loadtest.properties")) {
+            if (in != null) {
+                properties.load(in);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        System.getProperties().stringPropertyNames().stream()
+                .filter(key -> key.startsWith("loadtest.") || key.startsWith("stub."))
+                .forEach(key -> properties.setProperty(key, System.getProperty(key)));
+    }
+
+    public String get(String key) {
+        String value = properties.getProperty(key);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing load test setting " + key);
+        }
+        return value.trim();
+    }
+
+    public int getInt(String key) {
+        return Integer.parseInt(get(key));
+    }
+
+    public double getDouble(String key) {
+        return Double.parseDouble(get(key));
+    }
+
+    // 60s, 500ms, 2m
+    public Duration getDuration(String key) {
+        String value = get(key);
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        }
+        if (value.endsWith("s")) {
+            return Duration.ofSeconds(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        if (value.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        return Duration.ofMillis(Long.parseLong(value));
+    }
+}
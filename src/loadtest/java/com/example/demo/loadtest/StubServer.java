@@ -0,0 +1,89 @@
+package com.example.demo.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Local stand-in for dummyjson.com and the CountryInfoService SOAP endpoint.
+ * Every route answers its fixture after a log-normal latency (median / p99 from the settings)
+ * and fails with 503 at its error rate.
+ */
+public class StubServer implements AutoCloseable {
+
+    // z của p99 trong phân phối chuẩn
+    private static final double Z_99 = 2.326;
+
+    private final HttpServer server;
+
+    public StubServer(LoadTestSettings settings) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 4096);
+        route(settings, "/users/", "users", "application/json", fixture("fixtures/user.json"));
+        route(settings, "/carts/user/", "carts", "application/json", fixture("fixtures/carts.json"));
+        route(settings, "/posts/user/", "posts", "application/json", fixture("fixtures/posts.json"));
+        route(settings, "/soap", "soap", "text/xml; charset=utf-8", fixture("fixtures/continents.xml"));
+        // Mỗi request 1 virtual thread, sleep không chiếm platform thread
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.start();
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    private void route(LoadTestSettings settings, String path, String name, String contentType, byte[] body) {
+        double median = settings.getDouble("stub." + name + ".median-ms");
+        double p99 = settings.getDouble("stub." + name + ".p99-ms");
+        double errorRate = settings.getDouble("stub." + name + ".error-rate");
+        double mu = Math.log(median);
+        double sigma = p99 > median ? Math.log(p99 / median) / Z_99 : 0;
+
+        server.createContext(path, exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long latency = Math.round(Math.exp(mu + sigma * random.nextGaussian()));
+            try {
+                Thread.sleep(latency);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            if (random.nextDouble() < errorRate) {
+                respond(exchange, 503, "text/plain", "unavailable".getBytes());
+            } else {
+                respond(exchange, 200, contentType, body);
+            }
+        });
+    }
+
+    private static void respond(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static byte[] fixture(String resource) {
+        try (InputStream in = StubServer.class.getClassLoader().getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing fixture " + resource);
+            }
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
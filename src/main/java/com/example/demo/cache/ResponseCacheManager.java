@@ -0,0 +1,43 @@
+package com.example.demo.cache;
+
+import com.example.demo.config.ApiConfigRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Component
+public class ResponseCacheManager {
+
+    // group.source → cache của plan set đang chạy, dùng cho stats
+    private volatile Map<String, SourceResponseCache> caches = Map.of();
+
+    /**
+     * @return a new cache for the source, or null when caching is not configured
+     */
+    public SourceResponseCache create(String name, ApiConfigRegistry.Source cfg) {
+        if (cfg.getCache() == null) {
+            return null;
+        }
+        return new SourceResponseCache(name, cfg.getCache());
+    }
+
+    /**
+     * Expose the caches of the active plan set
+     */
+    public void publish(Map<String, SourceResponseCache> active) {
+        caches = Map.copyOf(active);
+    }
+
+    public Map<String, Map<String, Object>> stats() {
+        Map<String, Map<String, Object>> stats = new LinkedHashMap<>();
+        caches.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(e -> stats.put(e.getKey(), e.getValue().stats()));
+        return stats;
+    }
+
+    public void invalidateAll() {
+        caches.values().forEach(SourceResponseCache::invalidateAll);
+    }
+}
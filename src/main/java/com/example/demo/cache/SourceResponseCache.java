@@ -0,0 +1,218 @@
+package com.example.demo.cache;
+
+import com.example.demo.config.ApiConfigRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Response cache of one Source.
+ * Entries are fresh for ttl, then served stale for staleWhileRevalidate while
+ * a single background refresh runs. Size is bounded by maxEntries and maxWeight,
+ * eviction is LRU or LFU.
+ */
+@Slf4j
+public class SourceResponseCache {
+
+    private final String name;
+    private final long ttlNanos;
+    private final long staleNanos;
+    private final int maxEntries;
+    private final long maxWeight;
+    private final boolean lfu;
+
+    // access-order: iteration bắt đầu từ entry ít được dùng gần đây nhất
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalWeight;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public SourceResponseCache(String name, ApiConfigRegistry.CacheConfig cfg) {
+        this.name = name;
+        this.ttlNanos = cfg.getTtl().toNanos();
+        this.staleNanos = cfg.getStaleWhileRevalidate() == null ? 0 : cfg.getStaleWhileRevalidate().toNanos();
+        this.maxEntries = cfg.getMaxEntries();
+        this.maxWeight = cfg.getMaxWeight();
+        this.lfu = "lfu".equalsIgnoreCase(cfg.getEviction());
+    }
+
+    /**
+     * Return the cached value for key, loading it on miss.
+     * A stale entry is returned immediately while one background refresh runs.
+     */
+    public CompletableFuture<Object> get(String key, Supplier<CompletableFuture<Object>> loader) {
+        long now = System.nanoTime();
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+            if (entry != null) {
+                entry.frequency++;
+            }
+        }
+
+        if (entry != null) {
+            long age = now - entry.loadedAt;
+            if (age <= ttlNanos) {
+                hits.increment();
+                return CompletableFuture.completedFuture(entry.value);
+            }
+            if (age <= ttlNanos + staleNanos) {
+                staleHits.increment();
+                if (entry.refreshing.compareAndSet(false, true)) {
+                    refresh(key, entry, loader);
+                }
+                return CompletableFuture.completedFuture(entry.value);
+            }
+        }
+
+        misses.increment();
+        return load(loader).whenComplete((value, error) -> {
+            if (error != null) {
+                loadFailures.increment();
+            } else {
+                put(key, value);
+            }
+        });
+    }
+
+    private void refresh(String key, Entry stale, Supplier<CompletableFuture<Object>> loader) {
+        load(loader).whenComplete((value, error) -> {
+            if (error != null) {
+                loadFailures.increment();
+                log.warn("Cache refresh failed [{}] key {}: {}", name, key, error.getMessage());
+            } else {
+                put(key, value);
+            }
+            stale.refreshing.set(false);
+        });
+    }
+
+    private static CompletableFuture<Object> load(Supplier<CompletableFuture<Object>> loader) {
+        try {
+            return loader.get();
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private synchronized void put(String key, Object value) {
+        Entry entry = new Entry(value, ValueWeigher.weigh(value), System.nanoTime());
+
+        Entry previous = entries.put(key, entry);
+        if (previous != null) {
+            totalWeight -= previous.weight;
+            entry.frequency = previous.frequency;
+        }
+        totalWeight += entry.weight;
+
+        while (entries.size() > maxEntries || (maxWeight > 0 && totalWeight > maxWeight && entries.size() > 1)) {
+            String victim = lfu ? leastFrequentKey(key) : leastRecentKey(key);
+            if (victim == null) {
+                break;
+            }
+            totalWeight -= entries.remove(victim).weight;
+            evictions.increment();
+        }
+    }
+
+    private String leastRecentKey(String protectedKey) {
+        for (String candidate : entries.keySet()) {
+            if (!candidate.equals(protectedKey)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    // Ties → entry ít được dùng gần đây nhất (thứ tự iteration)
+    private String leastFrequentKey(String protectedKey) {
+        String victim = null;
+        long min = Long.MAX_VALUE;
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+            if (!e.getKey().equals(protectedKey) && e.getValue().frequency < min) {
+                min = e.getValue().frequency;
+                victim = e.getKey();
+            }
+        }
+        return victim;
+    }
+
+    public synchronized void invalidateAll() {
+        entries.clear();
+        totalWeight = 0;
+    }
+
+    public Map<String, Object> stats() {
+        long hitCount = hits.sum();
+        long staleCount = staleHits.sum();
+        long missCount = misses.sum();
+        long requests = hitCount + staleCount + missCount;
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("hits", hitCount);
+        stats.put("staleHits", staleCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", requests == 0 ? 0.0 : (double) (hitCount + staleCount) / requests);
+        stats.put("loadFailures", loadFailures.sum());
+        stats.put("evictions", evictions.sum());
+        synchronized (this) {
+            stats.put("size", entries.size());
+            stats.put("weight", totalWeight);
+        }
+        return stats;
+    }
+
+    private static class Entry {
+        private final Object value;
+        private final long weight;
+        private final long loadedAt;
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+        private long frequency = 1;
+
+        private Entry(Object value, long weight, long loadedAt) {
+            this.value = value;
+            this.weight = weight;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    /**
+     * Rough heap size estimate of an extracted value tree
+     */
+    static class ValueWeigher {
+
+        static long weigh(Object value) {
+            if (value == null) {
+                return 8;
+            }
+            if (value instanceof CharSequence cs) {
+                return 40 + 2L * cs.length();
+            }
+            if (value instanceof Map<?, ?> map) {
+                long weight = 48;
+                for (Map.Entry<?, ?> e : map.entrySet()) {
+                    weight += 32 + weigh(e.getKey()) + weigh(e.getValue());
+                }
+                return weight;
+            }
+            if (value instanceof List<?> list) {
+                long weight = 40;
+                for (Object item : list) {
+                    weight += 8 + weigh(item);
+                }
+                return weight;
+            }
+            return 16;
+        }
+    }
+}
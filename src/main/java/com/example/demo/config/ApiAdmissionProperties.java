@@ -0,0 +1,37 @@
+package com.example.demo.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "api.admission")
+@Getter @Setter
+public class ApiAdmissionProperties {
+
+    // false = mọi request đều được nhận như trước
+    private boolean enabled = true;
+
+    // Số aggregation chạy đồng thời (toàn service) lúc khởi động
+    private int initialLimit = 100;
+    private int minLimit = 10;
+    private int maxLimit = 1000;
+
+    // true: limit điều chỉnh theo latency quan sát được, false: giữ cố định initialLimit
+    private boolean adaptive = true;
+
+    // Tỉ lệ limit mới được áp dụng sau mỗi mẫu (0-1)
+    private double smoothing = 0.2;
+
+    // Số request chờ tối đa khi limit đã đầy, vượt quá → 503
+    private int maxQueue = 200;
+
+    // Thời gian chờ tối đa trong queue, hết hạn → 503
+    private Duration maxQueueWait = Duration.ofMillis(500);
+
+    // Giá trị Retry-After của response 503 / 429
+    private Duration retryAfter = Duration.ofSeconds(1);
+}
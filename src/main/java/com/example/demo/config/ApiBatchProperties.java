@@ -0,0 +1,18 @@
+package com.example.demo.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "api.batch")
+@Getter @Setter
+public class ApiBatchProperties {
+
+    // Số item của 1 batch request được aggregate đồng thời
+    private int maxConcurrency = 16;
+
+    // Số item tối đa trong 1 batch request
+    private int maxItems = 1000;
+}
@@ -4,7 +4,10 @@ import lombok.Getter;
 import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
 
+import java.time.Duration;
+import java.util.List;
 import java.util.Map;
 
 @Component
@@ -15,9 +18,24 @@ public class ApiConfigRegistry {
     // Group API tập hợp nhiều bộ api khác nhau
     private Map<String, ApiGroup> groups;
 
+    // true: route db/soap trả về object tree (List<Map>, Map) thay vì JSON String
+    private boolean structuredResults = true;
+
+    // Tối đa số hedge request / số request gốc (toàn service), 0.1 = thêm tối đa 10% load
+    private double maxHedgeRatio = 0.1;
+
     @Getter @Setter
     public static class ApiGroup {
         private Map<String, Source> sources;
+
+        // Latency budget của cả group (ms), null = không giới hạn
+        private Long timeoutMs;
+
+        // Admission control: group ưu tiên cao được nhận trước khi queue, giữ chỗ khi queue đầy
+        private int priority;
+
+        // Số request đồng thời tối đa của group, vượt quá → 429, 0 = không giới hạn
+        private int maxConcurrentRequests;
     }
 
     // URL: đường API call
@@ -27,11 +45,110 @@ public class ApiConfigRegistry {
     public static class Source {
         private String type;
         private String soapAction;
+        // SOAP envelope có {var} placeholder, null = envelope tĩnh theo soapAction
+        private String soapBody;
         private String url;
         private String path;
         private Map<String, String> fields;
         private DbConfig config;
+        // {var} trong query được bind thành PreparedStatement parameter
+        private String query;
+        // Named parameter thêm (dùng :?name trong query), value là template, vd. userId: "{id}"
+        private Map<String, String> parameters;
+        // DB: số row lấy mỗi lần round-trip / số row tối đa, 0 = mặc định của driver
+        private int fetchSize;
+        private int maxRows;
+        // DB: stream row qua cursor thẳng vào response thay vì load cả result vào heap
+        private boolean stream;
+        // DB: có fields mapping dạng $.column → SELECT * được thay bằng các column đó
+        private boolean projectionPushdown = true;
+        private CacheConfig cache;
+
+        // Source chạy sau các source này, template dùng được {source.path} từ kết quả của chúng
+        private List<String> dependsOn;
+
+        // optional: lỗi / timeout không làm fail cả response
+        private boolean optional;
+
+        // Resilience: null = không dùng circuit breaker / bulkhead, retry dùng mặc định
+        private CircuitBreakerConfig circuitBreaker;
+        private BulkheadConfig bulkhead;
+        private RetryConfig retry;
+
+        // REST / SOAP: null = mặc định của api.http
+        private Duration connectTimeout;
+        private Duration readTimeout;
+        // REST / SOAP, null = api.http.max-response-bytes
+        private DataSize maxResponseBytes;
+
+        // Hedged request, chỉ áp dụng cho source rest (GET)
+        private HedgeConfig hedge;
+
+        // Dạng batch dùng cho POST /{group}/_batch: N id → 1 call backend
+        private BatchConfig batch;
+    }
+
+    // Cache response theo resolved URL / query / SOAP body
+    // ttl: thời gian fresh, staleWhileRevalidate: thời gian trả stale và refresh nền
+    // maxWeight: giới hạn kích thước ước lượng (bytes), 0 = không giới hạn
+    @Getter @Setter
+    public static class CacheConfig {
+        private Duration ttl = Duration.ofMinutes(1);
+        private Duration staleWhileRevalidate = Duration.ZERO;
+        private int maxEntries = 1000;
+        private long maxWeight = 0;
+        private String eviction = "lru";
+    }
+
+    // Rates tính theo % trên sliding window (số call gần nhất)
+    @Getter @Setter
+    public static class CircuitBreakerConfig {
+        private int slidingWindowSize = 20;
+        private int minimumCalls = 10;
+        private int failureRateThreshold = 50;
+        private int slowCallRateThreshold = 100;
+        private Duration slowCallDuration = Duration.ofSeconds(5);
+        private Duration waitInOpen = Duration.ofSeconds(30);
+        private int halfOpenCalls = 3;
+    }
+
+    @Getter @Setter
+    public static class BulkheadConfig {
+        private int maxConcurrentCalls = 10;
+    }
+
+    // Chỉ retry lỗi transient (IO, HTTP retryOnStatus, SQL transient / connection)
+    // idempotent: null = GET và SELECT được retry, SOAP (POST) thì không
+    @Getter @Setter
+    public static class RetryConfig {
+        private int maxRetries = 3;
+        private Duration delay = Duration.ofSeconds(5);
+        private double multiplier = 2.0;
+        private Boolean idempotent;
+        private List<Integer> retryOnStatus = List.of(408, 429, 502, 503, 504);
+    }
+
+    // delay: gửi request thứ 2 sau khoảng này; null = dùng percentile latency quan sát được
+    // (chỉ khi đã có ít nhất minSamples mẫu)
+    @Getter @Setter
+    public static class HedgeConfig {
+        private Duration delay;
+        private int percentile = 95;
+        private int minSamples = 20;
+    }
+
+    // url / query có placeholder {<variable>s}, vd. {ids}: REST nhận các id nối bằng separator,
+    // SQL mở rộng thành IN (:?ids_0, :?ids_1, ...). path chọn danh sách phần tử trong response batch,
+    // key là JsonPath trên từng phần tử để ghép lại theo id; mỗi phần tử được xử lý như response của 1 id
+    @Getter @Setter
+    public static class BatchConfig {
+        private String url;
         private String query;
+        private String variable = "id";
+        private String path = "$";
+        private String key = "$.id";
+        private int maxSize = 100;
+        private String separator = ",";
     }
 
     @Getter @Setter
@@ -40,5 +157,10 @@ public class ApiConfigRegistry {
         private String username;
         private String password;
         private String database;
+        // Driver-level prepared statement cache (số statement / connection)
+        private int statementCacheSize = 100;
+        // HikariCP pool; source dùng chung url + username dùng chung pool với size lớn nhất
+        private int maxPoolSize = 10;
+        private int minIdle = 2;
     }
 }
@@ -1,15 +1,67 @@
 package com.example.demo.config;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
 
 @Configuration
+@Slf4j
 public class ApiExecutorConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService apiExecutorService(ApiExecutorProperties properties) {
+        if (properties.isVirtual()) {
+            log.info("API executor: virtual threads, max concurrency {}", properties.getMaxConcurrency());
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("api-vt-", 0).factory());
+        }
+        // Pool cố định đã tự giới hạn số call đồng thời → max-concurrency chỉ thu nhỏ pool
+        int poolSize = properties.getMaxConcurrency() > 0
+                ? Math.min(properties.getPoolSize(), properties.getMaxConcurrency())
+                : properties.getPoolSize();
+        log.info("API executor: fixed pool of {} threads", poolSize);
+        return Executors.newFixedThreadPool(poolSize);
+    }
+
+    /**
+     * Virtual threads are capped by a semaphore taken inside the task (the task is the whole
+     * source call); a fixed pool is used as is, its threads would only block on a semaphore
+     */
+    @Bean
+    public Executor apiExecutor(ExecutorService apiExecutorService, ApiExecutorProperties properties) {
+        if (properties.isVirtual() && properties.getMaxConcurrency() > 0) {
+            return new ConcurrencyLimitedExecutor(apiExecutorService, properties.getMaxConcurrency());
+        }
+        return apiExecutorService;
+    }
+
+    /**
+     * api.executor.active / api.executor.queued for the concurrency limit,
+     * executor.* pool metrics when running on a fixed thread pool
+     */
     @Bean
-    public Executor apiExecutor() {
-        return Executors.newFixedThreadPool(10);
+    public MeterBinder apiExecutorMetrics(ExecutorService apiExecutorService, Executor apiExecutor) {
+        return registry -> {
+            if (apiExecutor instanceof ConcurrencyLimitedExecutor limited) {
+                Gauge.builder("api.executor.active", limited, ConcurrencyLimitedExecutor::activeTasks)
+                        .description("Source calls currently holding a concurrency permit")
+                        .register(registry);
+                Gauge.builder("api.executor.queued", limited, ConcurrencyLimitedExecutor::queuedTasks)
+                        .description("Source calls waiting for a concurrency permit")
+                        .register(registry);
+            }
+            // Virtual thread executor không có pool / queue để đo
+            if (apiExecutorService instanceof ThreadPoolExecutor) {
+                new ExecutorServiceMetrics(apiExecutorService, "api", Tags.empty()).bindTo(registry);
+            }
+        };
     }
 }
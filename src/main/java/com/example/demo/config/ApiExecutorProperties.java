@@ -0,0 +1,25 @@
+package com.example.demo.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "api.executor")
+@Getter @Setter
+public class ApiExecutorProperties {
+
+    // fixed: thread pool cố định, virtual: 1 virtual thread cho mỗi source call
+    private String mode = "fixed";
+
+    // Số thread của pool khi mode = fixed
+    private int poolSize = 10;
+
+    // Giới hạn số source call chạy đồng thời (toàn service), 0 = không giới hạn; mode fixed: pool-size tối đa
+    private int maxConcurrency = 0;
+
+    public boolean isVirtual() {
+        return "virtual".equalsIgnoreCase(mode);
+    }
+}
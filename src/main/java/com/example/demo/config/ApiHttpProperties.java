@@ -0,0 +1,39 @@
+package com.example.demo.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Component
+@ConfigurationProperties(prefix = "api.http")
+@Getter @Setter
+public class ApiHttpProperties {
+
+    // Connection pool dùng chung cho mọi REST / SOAP source
+    private int maxTotal = 200;
+    private int maxPerRoute = 20;
+
+    // Giới hạn riêng theo host, key là origin, vd. "https://dummyjson.com": 50
+    private Map<String, Integer> maxPerHost = new LinkedHashMap<>();
+
+    // Keep-alive tối đa (server trả ngắn hơn thì theo server) và tuổi thọ tối đa của connection
+    private Duration keepAlive = Duration.ofSeconds(30);
+    private Duration connectionTtl = Duration.ofMinutes(5);
+    private Duration validateAfterInactivity = Duration.ofSeconds(2);
+
+    // Timeout mặc định, Source có thể override
+    private Duration connectTimeout = Duration.ofSeconds(3);
+    private Duration readTimeout = Duration.ofSeconds(30);
+
+    // Gửi Accept-Encoding gzip / deflate và giải nén dạng stream
+    private boolean compression = true;
+
+    // Kích thước tối đa của 1 response (sau giải nén), vượt quá → source lỗi; Source có thể override
+    private DataSize maxResponseBytes = DataSize.ofMegabytes(32);
+}
@@ -0,0 +1,26 @@
+package com.example.demo.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "api.reload")
+@Getter @Setter
+public class ApiReloadProperties {
+
+    // File chứa block api.* được đọc lại khi reload, vd. file:./config/application.yaml
+    private String location = "classpath:application.yaml";
+
+    // Theo dõi file (chỉ với location file:) và tự reload khi thay đổi
+    private boolean watch = false;
+
+    // Gom nhiều lần ghi file liên tiếp thành 1 lần reload
+    private Duration debounce = Duration.ofMillis(500);
+
+    // POST /admin/reload phải gửi token này trong header X-Admin-Token, trống → endpoint bị tắt
+    private String token;
+}
@@ -0,0 +1,18 @@
+package com.example.demo.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "api.trace")
+@Getter @Setter
+public class ApiTraceProperties {
+
+    // X-Trace: true → Server-Timing header + _trace trong body, header → chỉ Server-Timing
+    private String header = "X-Trace";
+
+    // Tỉ lệ request được trace ngẫu nhiên (chỉ Server-Timing header, body không đổi), 0 = tắt
+    private double sampleRate = 0;
+}
@@ -0,0 +1,37 @@
+package com.example.demo.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@Component
+@ConfigurationProperties(prefix = "api.warmup")
+@Getter @Setter
+public class ApiWarmupProperties {
+
+    // Warm-up chạy trước khi readiness chuyển sang ACCEPTING_TRAFFIC
+    private boolean enabled = true;
+
+    // Quá thời gian → bỏ phần còn lại, vẫn nhận traffic
+    private Duration timeout = Duration.ofSeconds(60);
+
+    // Số connection mở sẵn tới mỗi host REST / SOAP
+    private int httpConnectionsPerHost = 2;
+
+    // Aggregation giả lập để JIT compile request path, gọi backend thật
+    private List<Request> requests = new ArrayList<>();
+
+    @Getter @Setter
+    public static class Request {
+        private String group;
+        private Map<String, String> variables = Map.of();
+        private int iterations = 20;
+        private int concurrency = 4;
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.demo.config;
+
+import org.apache.camel.component.servlet.CamelHttpTransportServlet;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.ServletRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Registers the Camel servlet in async mode (replaces the starter's mapping,
+ * camel.servlet.mapping.enabled = false), so the servlet thread is released while
+ * an aggregation is in progress and the response is completed from its callback.
+ */
+@Configuration
+public class CamelServletConfig {
+
+    @Bean
+    public ServletRegistrationBean<CamelHttpTransportServlet> camelServletRegistration(
+            @Value("${camel.servlet.mapping.context-path:/camel/*}") String contextPath
+    ) {
+        ServletRegistrationBean<CamelHttpTransportServlet> mapping =
+                new ServletRegistrationBean<>(new CamelHttpTransportServlet(), contextPath);
+        mapping.setName("CamelServlet");
+        mapping.setLoadOnStartup(1);
+        mapping.setAsyncSupported(true);
+        mapping.addInitParameter("async", "true");
+        return mapping;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.demo.config;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Caps how many tasks of the delegate run at the same time.
+ * The permit is taken inside the task, so submitting never blocks the caller;
+ * with virtual threads the waiting task only parks its own cheap thread.
+ * The permit covers the whole task, so the task must do the work synchronously
+ * rather than hand it to another pool.
+ */
+public class ConcurrencyLimitedExecutor implements Executor {
+
+    private final Executor delegate;
+    private final Semaphore permits;
+    private final int maxConcurrency;
+
+    public ConcurrencyLimitedExecutor(Executor delegate, int maxConcurrency) {
+        this.delegate = delegate;
+        this.permits = new Semaphore(maxConcurrency);
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        delegate.execute(() -> {
+            // Bị interrupt khi đang chờ vẫn chạy task (future của caller phải complete),
+            // interrupt flag được giữ lại cho task
+            permits.acquireUninterruptibly();
+            try {
+                task.run();
+            } finally {
+                permits.release();
+            }
+        });
+    }
+
+    public int availablePermits() {
+        return permits.availablePermits();
+    }
+
+    public int activeTasks() {
+        return maxConcurrency - permits.availablePermits();
+    }
+
+    // Task đã submit, đang chờ permit (ước lượng, theo Semaphore.getQueueLength)
+    public int queuedTasks() {
+        return permits.getQueueLength();
+    }
+}
@@ -2,17 +2,36 @@ package com.example.demo.config;
 
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.pool.HikariPool;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 @Component
+@Slf4j
 public class DataSourceFactory {
 
+    // hikaricp.connections.* theo pool name cho mọi pool tạo động
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     private final Map<String, DataSource> dataSourceCache = new ConcurrentHashMap<>();
 
+    // url|username → size lớn nhất mà các source dùng chung pool yêu cầu
+    private final Map<String, PoolSize> poolSizes = new ConcurrentHashMap<>();
+
     private static final Map<String, String> DATABASE_DRIVER = Map.of(
             "postgres", "org.postgresql.Driver",
             "oracle", "oracle.jdbc.OracleDriver",
@@ -34,8 +53,71 @@ public class DataSourceFactory {
         }
 
         // Use connection URL as cache key to share datasources with same config
-        String cacheKey = config.getUrl() + "|" + config.getUsername();
-        return dataSourceCache.computeIfAbsent(cacheKey, k -> createDataSource(config));
+        return dataSourceCache.computeIfAbsent(cacheKey(config), k -> createDataSource(config));
+    }
+
+    /**
+     * Record the pool size a source asks for, when its plan is compiled (startup and reload).
+     * A pool shared by several sources is created with, or grown to, the largest size;
+     * the request path never resizes.
+     */
+    public void register(ApiConfigRegistry.DbConfig config) {
+        String cacheKey = cacheKey(config);
+        PoolSize size = poolSizes.merge(cacheKey, new PoolSize(config.getMaxPoolSize(), config.getMinIdle()), PoolSize::max);
+        if (dataSourceCache.get(cacheKey) instanceof HikariDataSource hikari) {
+            resize(hikari, size);
+        }
+    }
+
+    /**
+     * Create the pool of a source and open its minIdle connections now instead of on the first request
+     *
+     * @return number of connections opened
+     */
+    public int warmUp(ApiConfigRegistry.DbConfig config) throws SQLException {
+        DataSource dataSource = getDataSource(config);
+        int size = dataSource instanceof HikariDataSource hikari
+                ? hikari.getHikariConfigMXBean().getMinimumIdle()
+                : 1;
+
+        // Giữ đồng thời để pool phải mở đủ size connection, close → trả về pool
+        List<Connection> connections = new ArrayList<>(size);
+        try {
+            for (int i = 0; i < size; i++) {
+                connections.add(dataSource.getConnection());
+            }
+        } finally {
+            for (Connection connection : connections) {
+                connection.close();
+            }
+        }
+        return connections.size();
+    }
+
+    /**
+     * Borrow a connection, waiting at most timeoutMillis for a free one instead of the
+     * pool-wide connection timeout
+     */
+    public static Connection getConnection(DataSource dataSource, long timeoutMillis) throws SQLException {
+        if (dataSource instanceof HikariDataSource hikari && hikari.getHikariPoolMXBean() instanceof HikariPool pool) {
+            return pool.getConnection(Math.max(1, timeoutMillis));
+        }
+        return dataSource.getConnection();
+    }
+
+    // Pool dùng chung: tăng theo source có size lớn hơn, không bao giờ giảm
+    private void resize(HikariDataSource dataSource, PoolSize size) {
+        HikariConfigMXBean pool = dataSource.getHikariConfigMXBean();
+        if (size.maxPoolSize() > pool.getMaximumPoolSize()) {
+            pool.setMaximumPoolSize(size.maxPoolSize());
+        }
+        if (size.minIdle() > pool.getMinimumIdle()) {
+            pool.setMinimumIdle(Math.min(size.minIdle(), pool.getMaximumPoolSize()));
+        }
+    }
+
+    private static String cacheKey(ApiConfigRegistry.DbConfig config) {
+        return config.getUrl() + "|" + config.getUsername();
     }
 
     /**
@@ -48,26 +130,70 @@ public class DataSourceFactory {
         hikariConfig.setPassword(config.getPassword());
         hikariConfig.setDriverClassName(DATABASE_DRIVER.get(config.getDatabase()));
 
-        // Configure pool settings
-        hikariConfig.setMaximumPoolSize(10);
-        hikariConfig.setMinimumIdle(2);
+        // Configure pool settings, size lớn nhất đã register cho pool này
+        PoolSize size = poolSizes.getOrDefault(cacheKey(config), new PoolSize(config.getMaxPoolSize(), config.getMinIdle()));
+        hikariConfig.setMaximumPoolSize(Math.max(1, size.maxPoolSize()));
+        hikariConfig.setMinimumIdle(Math.min(size.minIdle(), hikariConfig.getMaximumPoolSize()));
         hikariConfig.setConnectionTimeout(30000);
         hikariConfig.setIdleTimeout(600000);
         hikariConfig.setMaxLifetime(1800000);
-        hikariConfig.setPoolName("DynamicPool-" + config.getUrl().hashCode());
+        // Pool name là tag của metric → phân biệt cả username
+        hikariConfig.setPoolName("DynamicPool-" + Integer.toHexString(cacheKey(config).hashCode()));
+        hikariConfig.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+
+        configureStatementCache(hikariConfig, config);
 
         return new HikariDataSource(hikariConfig);
     }
 
     /**
-     * Close all cached datasources
+     * Enable the driver-level prepared statement cache so the fixed SQL text of each
+     * source is prepared once per connection
+     */
+    private void configureStatementCache(HikariConfig hikariConfig, ApiConfigRegistry.DbConfig config) {
+        int size = config.getStatementCacheSize();
+        if (size <= 0 || config.getDatabase() == null) {
+            return;
+        }
+
+        switch (config.getDatabase()) {
+            case "postgres" -> {
+                // Server-side prepare sau 1 lần dùng, String parameter để server tự suy ra kiểu
+                hikariConfig.addDataSourceProperty("prepareThreshold", "1");
+                hikariConfig.addDataSourceProperty("preparedStatementCacheQueries", String.valueOf(size));
+                hikariConfig.addDataSourceProperty("stringtype", "unspecified");
+            }
+            case "oracle" -> hikariConfig.addDataSourceProperty(
+                    "oracle.jdbc.implicitStatementCacheSize", String.valueOf(size));
+            case "mysql", "mariadb" -> {
+                hikariConfig.addDataSourceProperty("cachePrepStmts", "true");
+                hikariConfig.addDataSourceProperty("useServerPrepStmts", "true");
+                hikariConfig.addDataSourceProperty("prepStmtCacheSize", String.valueOf(size));
+                hikariConfig.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+            }
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * Close all cached datasources, on context shutdown after the web server has stopped
      */
+    @PreDestroy
     public void closeAll() {
         dataSourceCache.values().forEach(ds -> {
             if (ds instanceof HikariDataSource) {
+                log.info("Closing datasource pool {}", ((HikariDataSource) ds).getPoolName());
                 ((HikariDataSource) ds).close();
             }
         });
         dataSourceCache.clear();
     }
+
+    private record PoolSize(int maxPoolSize, int minIdle) {
+
+        private PoolSize max(PoolSize other) {
+            return new PoolSize(Math.max(maxPoolSize, other.maxPoolSize), Math.max(minIdle, other.minIdle));
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,80 @@
+package com.example.demo.config;
+
+import com.example.demo.template.SqlQueryTemplate;
+import lombok.Getter;
+import org.apache.camel.CamelContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Compiles the query of a db source and binds its datasource into the Camel registry.
+ * The pool itself is created by the startup warm-up (StartupWarmup) or on first use.
+ */
+@Component
+public class DbSourceRegistry {
+
+    @Autowired
+    private CamelContext camelContext;
+
+    @Autowired
+    private DataSourceFactory dataSourceFactory;
+
+    public DbSource create(String groupName, String key, ApiConfigRegistry.Source cfg) {
+        ApiConfigRegistry.DbConfig db = cfg.getConfig();
+        if (db == null) {
+            throw new IllegalArgumentException("Source " + groupName + "." + key + ": missing db config");
+        }
+
+        // Tên gồm hash của connection config: reload không đổi DB → dùng lại endpoint camel-sql đã tạo,
+        // đổi DB → endpoint mới (endpoint giữ reference tới DataSource lúc tạo)
+        String dsName = "ds-" + groupName + "-" + key + "-"
+                + Integer.toHexString(Objects.hash(db.getUrl(), db.getUsername(), db.getPassword()));
+
+        // Size chỉ được áp dụng lúc compile plan (startup / reload), không phải trên request path
+        dataSourceFactory.register(db);
+
+        // Supplier: pool chỉ được tạo khi route lookup datasource lần đầu
+        Supplier<DataSource> dataSource = () -> dataSourceFactory.getDataSource(db);
+        camelContext.getRegistry().bind(dsName, DataSource.class, dataSource);
+
+        return new DbSource(dsName, endpointUri(dsName, cfg), dataSource,
+                SqlQueryTemplate.compile(cfg.getQuery(), cfg.getParameters()));
+    }
+
+    // SQL lấy từ body → 1 endpoint cho mỗi datasource, fetchSize / maxRows truyền xuống JdbcTemplate
+    private static String endpointUri(String dsName, ApiConfigRegistry.Source cfg) {
+        StringBuilder uri = new StringBuilder("sql:query?useMessageBodyForSql=true&outputType=SelectList")
+                .append("&dataSource=#").append(dsName);
+        if (cfg.getFetchSize() > 0) {
+            uri.append("&template.fetchSize=").append(cfg.getFetchSize());
+        }
+        if (cfg.getMaxRows() > 0) {
+            uri.append("&template.maxRows=").append(cfg.getMaxRows());
+        }
+        return uri.toString();
+    }
+
+    @Getter
+    public static class DbSource {
+        private final String dsName;
+        private final String endpointUri;
+        private final Supplier<DataSource> dataSource;
+        private final SqlQueryTemplate query;
+
+        public DbSource(String dsName, String endpointUri, Supplier<DataSource> dataSource, SqlQueryTemplate query) {
+            this.dsName = dsName;
+            this.endpointUri = endpointUri;
+            this.dataSource = dataSource;
+            this.query = query;
+        }
+
+        // Cùng datasource / endpoint, query khác (vd. column list đã push down)
+        public DbSource withQuery(SqlQueryTemplate query) {
+            return query == this.query ? this : new DbSource(dsName, endpointUri, dataSource, query);
+        }
+    }
+}
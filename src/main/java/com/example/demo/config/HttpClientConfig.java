@@ -0,0 +1,155 @@
+package com.example.demo.config;
+
+import com.example.demo.service.AbortableCall;
+import com.example.demo.service.Deadline;
+import com.example.demo.service.SourceTrace;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.camel.Exchange;
+import org.apache.camel.component.http.HttpActivityListener;
+import org.apache.camel.component.http.HttpComponent;
+import org.apache.camel.spi.ComponentCustomizer;
+import org.apache.hc.client5.http.ConnectionKeepAliveStrategy;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.ChainElement;
+import org.apache.hc.client5.http.impl.DefaultConnectionKeepAliveStrategy;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.concurrent.Cancellable;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.URI;
+import java.time.Duration;
+
+/**
+ * Shared outbound connection pool of the http / https Camel components:
+ * per-host limits, capped keep-alive, connection TTL and gzip / deflate
+ * (decompressed as a stream by HttpClient).
+ */
+@Configuration
+@Slf4j
+public class HttpClientConfig {
+
+    // Attribute camel-http đặt Exchange vào HttpContext (HttpProducer, khi endpoint có HttpActivityListener)
+    static final String EXCHANGE_ATTRIBUTE = Exchange.class.getName();
+
+    private static final HttpActivityListener EXCHANGE_IN_CONTEXT = new HttpActivityListener() {
+        @Override
+        public void onRequestSubmitted(Object source, Exchange exchange, HttpHost host,
+                                       HttpRequest request, HttpEntity entity) {
+        }
+
+        @Override
+        public void onResponseReceived(Object source, Exchange exchange, HttpHost host,
+                                       HttpResponse response, HttpEntity entity, long elapsed) {
+        }
+    };
+
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager apiHttpConnectionManager(ApiHttpProperties properties) {
+        PoolingHttpClientConnectionManager manager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(properties.getMaxTotal())
+                .setMaxConnPerRoute(properties.getMaxPerRoute())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(properties.getConnectTimeout()))
+                        .setTimeToLive(TimeValue.of(properties.getConnectionTtl()))
+                        .setValidateAfterInactivity(TimeValue.of(properties.getValidateAfterInactivity()))
+                        .build())
+                .build();
+
+        properties.getMaxPerHost().forEach((origin, max) -> manager.setMaxPerRoute(route(origin), max));
+
+        log.info("HTTP pool: max total {}, max per route {}, per host {}",
+                properties.getMaxTotal(), properties.getMaxPerRoute(), properties.getMaxPerHost());
+        return manager;
+    }
+
+    @Bean
+    public ComponentCustomizer apiHttpComponentCustomizer(
+            PoolingHttpClientConnectionManager apiHttpConnectionManager,
+            ApiHttpProperties properties
+    ) {
+        return ComponentCustomizer.builder(HttpComponent.class).build(component -> {
+            component.setClientConnectionManager(apiHttpConnectionManager);
+            // Có listener thì camel-http mới đặt Exchange vào HttpContext của từng request
+            component.setHttpActivityListener(EXCHANGE_IN_CONTEXT);
+            component.setHttpClientConfigurer(builder -> {
+                builder.setKeepAliveStrategy(keepAlive(properties.getKeepAlive()));
+                // Call có deadline: response timeout không vượt quá phần budget còn lại, abort được từ thread khác
+                builder.addExecInterceptorFirst("deadline", (request, scope, chain) -> {
+                    AbortableCall call = property(scope.clientContext, AbortableCall.EXCHANGE_PROPERTY, AbortableCall.class);
+                    if (call != null) {
+                        if (scope.originalRequest instanceof Cancellable cancellable) {
+                            call.attach(cancellable::cancel);
+                        }
+                        capResponseTimeout(scope.clientContext, call.getDeadline());
+                    }
+                    return chain.proceed(request, scope);
+                });
+                // Traced request: connection sẵn sàng (lease + connect) / nhận xong response head
+                builder.addExecInterceptorAfter(ChainElement.CONNECT.name(), "trace", (request, scope, chain) -> {
+                    SourceTrace trace = property(scope.clientContext, SourceTrace.EXCHANGE_PROPERTY, SourceTrace.class);
+                    mark(trace, "connect");
+                    ClassicHttpResponse response = chain.proceed(request, scope);
+                    mark(trace, "first-byte");
+                    return response;
+                });
+                if (!properties.isCompression()) {
+                    builder.disableContentCompression();
+                }
+            });
+        });
+    }
+
+    private static <T> T property(HttpContext context, String name, Class<T> type) {
+        return context.getAttribute(EXCHANGE_ATTRIBUTE) instanceof Exchange exchange
+                ? exchange.getProperty(name, type)
+                : null;
+    }
+
+    // Endpoint giữ responseTimeout của source (không tạo endpoint mới theo deadline), giảm theo từng request
+    static void capResponseTimeout(HttpClientContext context, Deadline deadline) {
+        if (deadline == null) {
+            return;
+        }
+        RequestConfig config = context.getRequestConfigOrDefault();
+        Timeout remaining = Timeout.ofMilliseconds(Math.max(1, deadline.remainingMillis()));
+        Timeout current = config.getResponseTimeout();
+        if (current == null || current.isDisabled() || remaining.compareTo(current) < 0) {
+            context.setRequestConfig(RequestConfig.copy(config).setResponseTimeout(remaining).build());
+        }
+    }
+
+    private static void mark(SourceTrace trace, String event) {
+        if (trace != null) {
+            trace.mark(event);
+        }
+    }
+
+    // Theo Keep-Alive header của server nhưng không quá giới hạn cấu hình
+    private static ConnectionKeepAliveStrategy keepAlive(Duration max) {
+        TimeValue cap = TimeValue.of(max);
+        return (response, context) -> {
+            TimeValue server = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return TimeValue.isPositive(server) && server.compareTo(cap) < 0 ? server : cap;
+        };
+    }
+
+    static HttpRoute route(String origin) {
+        URI uri = URI.create(origin);
+        boolean secure = "https".equalsIgnoreCase(uri.getScheme());
+        int port = uri.getPort() > 0 ? uri.getPort() : (secure ? 443 : 80);
+        return new HttpRoute(new HttpHost(uri.getScheme(), uri.getHost(), port), null, secure);
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.demo.config;
+
+import org.apache.hc.client5.http.io.ConnectionEndpoint;
+import org.apache.hc.client5.http.io.LeaseRequest;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Opens connections (TCP + TLS) to a backend origin in the shared pool of the http components,
+ * so the first requests after startup reuse them instead of paying the handshakes
+ */
+@Component
+public class HttpConnectionWarmer {
+
+    @Autowired
+    private PoolingHttpClientConnectionManager apiHttpConnectionManager;
+
+    @Autowired
+    private ApiHttpProperties properties;
+
+    /**
+     * @return number of connections opened, fewer when the per-route limit is lower
+     */
+    public int warmUp(String origin, int connections) throws Exception {
+        Timeout connectTimeout = Timeout.of(properties.getConnectTimeout());
+        int size = Math.min(connections, apiHttpConnectionManager.getMaxPerRoute(HttpClientConfig.route(origin)));
+
+        // Lease đồng thời để pool phải mở connection mới cho từng endpoint
+        List<ConnectionEndpoint> endpoints = new ArrayList<>(size);
+        try {
+            for (int i = 0; i < size; i++) {
+                LeaseRequest lease = apiHttpConnectionManager.lease(
+                        "warmup-" + i, HttpClientConfig.route(origin), connectTimeout, null);
+                ConnectionEndpoint endpoint = lease.get(connectTimeout);
+                endpoints.add(endpoint);
+                if (!endpoint.isConnected()) {
+                    apiHttpConnectionManager.connect(endpoint, connectTimeout, HttpClientContext.create());
+                }
+            }
+        } finally {
+            // Trả về pool ở trạng thái reusable, giữ theo keep-alive cấu hình
+            endpoints.forEach(endpoint -> apiHttpConnectionManager.release(
+                    endpoint, null, TimeValue.of(properties.getKeepAlive())));
+        }
+        return endpoints.size();
+    }
+}
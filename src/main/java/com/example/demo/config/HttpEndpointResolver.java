@@ -0,0 +1,47 @@
+package com.example.demo.config;
+
+import org.apache.camel.Exchange;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.time.Duration;
+
+/**
+ * Maps a resolved source URL onto one pooled http endpoint per origin (and timeout profile).
+ * Path and query travel in the CamelHttpUri / CamelHttpQuery headers, so dynamic URLs
+ * do not create a new endpoint each. The response body is not cached by camel-http:
+ * the call route reads it from the connection within maxResponseBytes.
+ */
+@Component
+public class HttpEndpointResolver {
+
+    public static final String ENDPOINT_PROPERTY = "httpEndpoint";
+    public static final String MAX_RESPONSE_BYTES_PROPERTY = "maxResponseBytes";
+    // ResponseReader của source, null = body được đọc thành byte[] (vẫn giới hạn)
+    public static final String RESPONSE_READER_PROPERTY = "responseReader";
+
+    @Autowired
+    private ApiHttpProperties properties;
+
+    public void prepare(Exchange exchange, ApiConfigRegistry.Source cfg, String url) {
+        URI uri = URI.create(url);
+        String origin = uri.getScheme() + "://" + uri.getRawAuthority();
+
+        exchange.setProperty(ENDPOINT_PROPERTY, origin + "?throwExceptionOnFailure=true&disableStreamCache=true"
+                + "&connectTimeout=" + millis(cfg.getConnectTimeout(), properties.getConnectTimeout())
+                + "&responseTimeout=" + millis(cfg.getReadTimeout(), properties.getReadTimeout()));
+        exchange.setProperty(MAX_RESPONSE_BYTES_PROPERTY, (cfg.getMaxResponseBytes() != null
+                ? cfg.getMaxResponseBytes()
+                : properties.getMaxResponseBytes()).toBytes());
+
+        exchange.getIn().setHeader(Exchange.HTTP_URI, origin + (uri.getRawPath() == null ? "" : uri.getRawPath()));
+        if (uri.getRawQuery() != null) {
+            exchange.getIn().setHeader(Exchange.HTTP_QUERY, uri.getRawQuery());
+        }
+    }
+
+    private static long millis(Duration value, Duration fallback) {
+        return (value != null ? value : fallback).toMillis();
+    }
+}
@@ -3,6 +3,9 @@ package com.example.demo.dto;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 @Getter
 @Setter
 public class ApiCallResult {
@@ -11,15 +14,29 @@ public class ApiCallResult {
     private final String url;
     private final Object value;
     private final Throwable error;
+    private final boolean timedOut;
 
     public ApiCallResult(String key, String url, Object value, Throwable error) {
+        this(key, url, value, error, false);
+    }
+
+    public ApiCallResult(String key, String url, Object value, Throwable error, boolean timedOut) {
         this.key = key;
         this.url = url;
         this.value = value;
         this.error = error;
+        this.timedOut = timedOut;
     }
 
     public boolean isSuccess() {
         return error == null;
     }
+
+    public Map<String, Object> describeFailure() {
+        Map<String, Object> api = new LinkedHashMap<>();
+        api.put("key", key);
+        api.put("url", url);
+        api.put("reason", error == null ? null : error.getMessage());
+        return api;
+    }
 }
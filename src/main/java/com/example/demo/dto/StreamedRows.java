@@ -0,0 +1,245 @@
+package com.example.demo.dto;
+
+import com.example.demo.config.DataSourceFactory;
+import com.example.demo.resilience.SourceGuard;
+import com.example.demo.service.Deadline;
+import com.example.demo.template.SqlQueryTemplate;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.ColumnMapRowMapper;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Result of a streamed db source.
+ * open() runs inside the source call, under the source's breaker / bulkhead (once, no retry:
+ * rows are already written when reading fails) and the deadline: it borrows the connection,
+ * executes the query and fetches the first row, so a failing query fails the source call.
+ * Only reading the rows is deferred to serialization: they are read through the forward-only
+ * cursor, projected one at a time and written as a JSON array, so no row list is held in heap.
+ * The cursor holds its connection and permits until the rows are written or close() is called.
+ */
+@Slf4j
+public class StreamedRows extends JsonSerializable.Base implements AutoCloseable {
+
+    private static final ColumnMapRowMapper ROW_MAPPER = new ColumnMapRowMapper();
+
+    private final String name;
+    private final int fetchSize;
+    private final Function<Object, Object> projection;
+    private final SourceGuard.Admission admission;
+
+    private final Connection connection;
+    private final PreparedStatement statement;
+    private final ResultSet resultSet;
+    // Kết quả lần fetch đầu tiên trong open()
+    private final boolean firstRow;
+
+    // Xong khi row cuối đã được ghi (hoặc cursor bị đóng), lỗi = lỗi đọc từ DB
+    private final CompletableFuture<Void> done = new CompletableFuture<>();
+    // Đã bắt đầu ghi hoặc đã đóng, cursor chỉ dùng được một lần
+    private boolean claimed;
+    private int rows;
+
+    private StreamedRows(
+            String name,
+            int fetchSize,
+            Function<Object, Object> projection,
+            SourceGuard.Admission admission,
+            Connection connection,
+            PreparedStatement statement,
+            ResultSet resultSet,
+            boolean firstRow
+    ) {
+        this.name = name;
+        this.fetchSize = fetchSize;
+        this.projection = projection;
+        this.admission = admission;
+        this.connection = connection;
+        this.statement = statement;
+        this.resultSet = resultSet;
+        this.firstRow = firstRow;
+    }
+
+    /**
+     * Run the query and fetch the first row; blocking, call it from the api executor
+     *
+     * @param deadline bounds the connection wait and the query timeout, null = pool / driver defaults
+     */
+    public static StreamedRows open(
+            String name,
+            SourceGuard guard,
+            Deadline deadline,
+            Supplier<DataSource> dataSource,
+            SqlQueryTemplate query,
+            Map<String, Object> parameters,
+            int fetchSize,
+            int maxRows,
+            Function<Object, Object> projection
+    ) throws SQLException, TimeoutException {
+        SourceGuard.Admission admission = guard.admit();
+        Connection connection = null;
+        PreparedStatement statement = null;
+        ResultSet resultSet = null;
+        try {
+            connection = deadline != null
+                    ? DataSourceFactory.getConnection(dataSource.get(), remainingMillis(deadline))
+                    : dataSource.get().getConnection();
+            // PostgreSQL chỉ dùng cursor (fetchSize) khi autoCommit = false,
+            // Hikari rollback + reset autoCommit khi connection trả về pool
+            connection.setAutoCommit(false);
+
+            statement = connection.prepareStatement(
+                    query.getJdbcSql(), ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize);
+            statement.setMaxRows(maxRows);
+            if (deadline != null) {
+                // Đơn vị giây, làm tròn lên (0 = không giới hạn)
+                statement.setQueryTimeout((int) TimeUnit.MILLISECONDS.toSeconds(remainingMillis(deadline) + 999));
+            }
+
+            List<String> names = query.getJdbcParameterNames();
+            for (int i = 0; i < names.size(); i++) {
+                statement.setObject(i + 1, parameters.get(names.get(i)));
+            }
+
+            resultSet = statement.executeQuery();
+            boolean firstRow = resultSet.next();
+            return new StreamedRows(name, fetchSize, projection, admission, connection, statement, resultSet, firstRow);
+        } catch (SQLException | TimeoutException | RuntimeException e) {
+            closeQuietly(resultSet, statement, connection);
+            admission.complete(e);
+            throw e;
+        }
+    }
+
+    @Override
+    public void serialize(JsonGenerator gen, SerializerProvider provider) throws IOException {
+        synchronized (this) {
+            if (claimed) {
+                throw JsonMappingException.from(gen, "Streamed rows of source " + name + " were already written or closed");
+            }
+            claimed = true;
+        }
+        gen.writeStartArray();
+
+        Exception readError = null;
+        IOException writeError = null;
+        try {
+            for (boolean more = firstRow; more; more = resultSet.next()) {
+                Object row = projection.apply(ROW_MAPPER.mapRow(resultSet, rows));
+                try {
+                    provider.defaultSerializeValue(row, gen);
+                    rows++;
+                    // Đẩy dữ liệu ra theo từng batch thay vì giữ cả array trong buffer
+                    if (fetchSize > 0 && rows % fetchSize == 0) {
+                        gen.flush();
+                    }
+                } catch (IOException e) {
+                    // Lỗi ghi ra client (client ngắt kết nối) → không tính là lỗi của DB
+                    writeError = e;
+                    break;
+                }
+            }
+        } catch (SQLException | RuntimeException e) {
+            readError = e;
+        } finally {
+            release(readError);
+        }
+
+        if (writeError != null) {
+            throw writeError;
+        }
+        if (readError != null) {
+            throw JsonMappingException.from(gen, "Streaming query failed for source " + name + " after " + rows + " rows", readError);
+        }
+        gen.writeEndArray();
+        log.debug("DONE DB STREAM [{}] {} rows on thread: {}", name, rows, Thread.currentThread().getName());
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator gen, SerializerProvider provider, TypeSerializer typeSer) throws IOException {
+        serialize(gen, provider);
+    }
+
+    /**
+     * Release the cursor of a result that will not be written (call timed out, aggregation failed)
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (claimed) {
+                return;
+            }
+            claimed = true;
+        }
+        release(new CancellationException("Streamed rows of source " + name + " discarded"));
+    }
+
+    /**
+     * Close every StreamedRows among the values, for results that are dropped instead of written
+     */
+    public static void closeAll(Collection<?> values) {
+        values.forEach(value -> {
+            if (value instanceof StreamedRows rows) {
+                rows.close();
+            }
+        });
+    }
+
+    /**
+     * Completes once the rows are written or discarded; exceptionally when reading them failed
+     */
+    public CompletableFuture<Void> done() {
+        return done;
+    }
+
+    private void release(Throwable error) {
+        closeQuietly(resultSet, statement, connection);
+        admission.complete(error);
+        if (error != null) {
+            done.completeExceptionally(error);
+        } else {
+            done.complete(null);
+        }
+    }
+
+    private static long remainingMillis(Deadline deadline) throws TimeoutException {
+        long remaining = deadline.remainingMillis();
+        if (remaining == 0) {
+            throw new TimeoutException("Deadline of " + deadline.getTimeoutMillis() + " ms exceeded");
+        }
+        return remaining;
+    }
+
+    private static void closeQuietly(AutoCloseable... resources) {
+        for (AutoCloseable resource : resources) {
+            if (resource == null) {
+                continue;
+            }
+            try {
+                resource.close();
+            } catch (Exception e) {
+                log.debug("Closing streamed query resource failed: {}", e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.demo.exception;
+
+import lombok.Getter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Request shed by admission control before any source is called:
+ * 503 when the service is overloaded, 429 when the group exceeds its own quota
+ */
+@Getter
+public class AdmissionRejectedException extends RuntimeException {
+    private final String group;
+    private final String reason;
+    private final int status;
+    private final long retryAfterSeconds;
+
+    public AdmissionRejectedException(String group, String reason, int status, long retryAfterSeconds) {
+        super("Request for group " + group + " rejected: " + reason);
+        this.group = group;
+        this.reason = reason;
+        this.status = status;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public Map<String, Object> describe() {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("message", status == 429 ? "Too many requests" : "Service overloaded");
+        body.put("group", group);
+        body.put("reason", reason);
+        return body;
+    }
+}
@@ -3,6 +3,8 @@ package com.example.demo.exception;
 import com.example.demo.dto.ApiCallResult;
 import lombok.Getter;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -14,4 +16,29 @@ public class ApiAggregationException extends RuntimeException {
         super("One or more APIs failed");
         this.failedApis = failedApis;
     }
+
+    /**
+     * Error body of the 502 response: failed required sources, timed out ones listed separately
+     */
+    public Map<String, Object> describe() {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("message", "API aggregation failed");
+
+        List<Map<String, Object>> failed = new ArrayList<>();
+        List<Map<String, Object>> timedOut = new ArrayList<>();
+
+        failedApis.forEach(r -> {
+            if (r.isTimedOut()) {
+                timedOut.add(r.describeFailure());
+            } else {
+                failed.add(r.describeFailure());
+            }
+        });
+
+        body.put("failedApis", failed);
+        if (!timedOut.isEmpty()) {
+            body.put("timedOutApis", timedOut);
+        }
+        return body;
+    }
 }
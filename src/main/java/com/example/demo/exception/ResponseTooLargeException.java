@@ -0,0 +1,17 @@
+package com.example.demo.exception;
+
+import lombok.Getter;
+
+/**
+ * Backend response exceeded maxResponseBytes; reading stopped at the limit.
+ * Not an IOException, so the call is not retried.
+ */
+@Getter
+public class ResponseTooLargeException extends RuntimeException {
+    private final long maxBytes;
+
+    public ResponseTooLargeException(String target, long maxBytes) {
+        super("Response from " + target + " exceeds " + maxBytes + " bytes");
+        this.maxBytes = maxBytes;
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.demo.exception;
+
+import lombok.Getter;
+
+/**
+ * Call rejected locally (circuit breaker open / bulkhead full) without reaching the backend
+ */
+@Getter
+public class SourceUnavailableException extends RuntimeException {
+    private final String source;
+
+    public SourceUnavailableException(String source, String reason) {
+        super("Source " + source + " unavailable: " + reason);
+        this.source = source;
+    }
+}
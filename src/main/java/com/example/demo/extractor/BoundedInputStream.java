@@ -0,0 +1,66 @@
+package com.example.demo.extractor;
+
+import com.example.demo.exception.ResponseTooLargeException;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Fails with ResponseTooLargeException as soon as more than maxBytes are read,
+ * so an oversized body is never held in memory
+ */
+public class BoundedInputStream extends FilterInputStream {
+
+    private final long maxBytes;
+    private final String target;
+    private long count;
+
+    public BoundedInputStream(InputStream in, long maxBytes, String target) {
+        super(in);
+        this.maxBytes = maxBytes;
+        this.target = target;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b >= 0) {
+            count(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        int n = super.read(buffer, offset, length);
+        if (n > 0) {
+            count(n);
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        count(skipped);
+        return skipped;
+    }
+
+    // Không hỗ trợ mark / reset → bộ đếm luôn đúng
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    private void count(long n) {
+        count += n;
+        if (count > maxBytes) {
+            throw new ResponseTooLargeException(target, maxBytes);
+        }
+    }
+}
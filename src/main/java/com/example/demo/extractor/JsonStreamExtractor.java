@@ -0,0 +1,114 @@
+package com.example.demo.extractor;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.StreamReadFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.PathNotFoundException;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Streaming (Jackson) evaluation of a simple dotted root path ($.company, $.a.b) on a JSON
+ * response read straight from the bytes. Fields outside the path are skipped without being
+ * materialized, only the selected value becomes a Map / List tree.
+ * The stream is left open; the caller owns it (and whatever follows the selected value).
+ */
+public class JsonStreamExtractor {
+
+    private static final Pattern SIMPLE_PATH = Pattern.compile("\\$(\\.[A-Za-z_][A-Za-z0-9_\\-]*)*");
+
+    // Đóng parser không đóng stream: phần body còn lại được đọc hết qua BoundedInputStream của caller
+    private static final ObjectMapper MAPPER = new ObjectMapper(JsonFactory.builder()
+            .disable(StreamReadFeature.AUTO_CLOSE_SOURCE)
+            .build());
+
+    // Tên field tính từ root object, rỗng = cả document
+    @Getter
+    private final List<String> segments;
+
+    private JsonStreamExtractor(List<String> segments) {
+        this.segments = segments;
+    }
+
+    /**
+     * @return the compiled extractor, or null when the path needs full JsonPath
+     * (filters, wildcards, indexes) and the document has to be parsed as a whole
+     */
+    public static JsonStreamExtractor compile(String path) {
+        if (path == null || !SIMPLE_PATH.matcher(path).matches()) {
+            return null;
+        }
+        List<String> segments = path.length() == 1
+                ? List.of()
+                : List.copyOf(Arrays.asList(path.substring(2).split("\\.")));
+        return new JsonStreamExtractor(segments);
+    }
+
+    /**
+     * Parse the whole body into a Map / List tree, null for an empty body
+     */
+    public static Object parse(InputStream json) {
+        try (JsonParser parser = MAPPER.createParser(json)) {
+            return parser.nextToken() == null ? null : MAPPER.readValue(parser, Object.class);
+        } catch (JsonProcessingException e) {
+            throw invalid(e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return the value at the path, null for an empty body
+     */
+    public Object extract(InputStream json) {
+        try (JsonParser parser = MAPPER.createParser(json)) {
+            if (parser.nextToken() == null) {
+                return null;
+            }
+            for (String segment : segments) {
+                if (parser.currentToken() != JsonToken.START_OBJECT) {
+                    throw new PathNotFoundException("Expected an object at " + segment + " of path " + path());
+                }
+                if (!seek(parser, segment)) {
+                    throw new PathNotFoundException("No results for path: " + path());
+                }
+            }
+            return MAPPER.readValue(parser, Object.class);
+        } catch (JsonProcessingException e) {
+            throw invalid(e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Parser ở START_OBJECT → dừng ở value của field, các field khác bị skip
+    private static boolean seek(JsonParser parser, String field) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            parser.nextToken();
+            if (field.equals(name)) {
+                return true;
+            }
+            parser.skipChildren();
+        }
+        return false;
+    }
+
+    // Body sai cú pháp: không giữ IOException làm cause để RetryPolicy không coi là lỗi mạng
+    private static IllegalStateException invalid(JsonProcessingException e) {
+        return new IllegalStateException("Invalid JSON response: " + e.getOriginalMessage());
+    }
+
+    private String path() {
+        return "$." + String.join(".", segments);
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.demo.extractor;
+
+import java.io.InputStream;
+
+/**
+ * Turns a (bounded) response body stream into the document handed to the service,
+ * while the HTTP response is still open
+ */
+@FunctionalInterface
+public interface ResponseReader {
+
+    Object read(InputStream body);
+}
@@ -0,0 +1,145 @@
+package com.example.demo.extractor;
+
+import com.example.demo.config.ApiConfigRegistry;
+import com.jayway.jsonpath.Configuration;
+import com.jayway.jsonpath.JsonPath;
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compiled form of a Source's path + fields mapping.
+ * Paths are compiled once, each response body is parsed once and every
+ * compiled path is evaluated against that single document.
+ */
+@Getter
+public class SourceExtractor {
+
+    private static final Configuration CONFIGURATION = Configuration.defaultConfiguration();
+
+    // $.column sau khi JsonPath normalize
+    private static final Pattern COLUMN_PATH = Pattern.compile("\\$\\['([A-Za-z_][A-Za-z0-9_]*)']");
+
+    private final JsonPath rootPath;
+    private final Map<String, JsonPath> fieldPaths;
+
+    private SourceExtractor(JsonPath rootPath, Map<String, JsonPath> fieldPaths) {
+        this.rootPath = rootPath;
+        this.fieldPaths = fieldPaths;
+    }
+
+    public static SourceExtractor compile(ApiConfigRegistry.Source cfg) {
+        JsonPath rootPath = JsonPath.compile(cfg.getPath());
+
+        Map<String, JsonPath> fieldPaths = new LinkedHashMap<>();
+        if (cfg.getFields() != null) {
+            cfg.getFields().forEach((field, path) -> fieldPaths.put(field, JsonPath.compile(path)));
+        }
+
+        return new SourceExtractor(rootPath, Collections.unmodifiableMap(fieldPaths));
+    }
+
+    /**
+     * Parse the raw body once and extract from the parsed document
+     */
+    public Object extract(String body) {
+        return extractFrom(parse(body));
+    }
+
+    /**
+     * Extract from an already parsed document (Map / List tree)
+     */
+    public Object extractFrom(Object document) {
+        return project(rootPath.read(document, CONFIGURATION));
+    }
+
+    /**
+     * Apply the fields mapping to a value already selected by the root path
+     * (vd. kết quả của XmlPathExtractor)
+     */
+    public Object project(Object root) {
+        // No DTO mapping → return raw result
+        if (fieldPaths.isEmpty()) {
+            return root;
+        }
+
+        // Case 1: root is a LIST → map each element
+        if (root instanceof List<?> list) {
+            return list.stream()
+                    .map(this::extractFields)
+                    .toList();
+        }
+
+        // Case 2: root is an OBJECT → map once
+        return extractFields(root);
+    }
+
+    /**
+     * Project a single row / element through the fields mapping (streamed DB rows)
+     */
+    public Object projectRow(Object row) {
+        return fieldPaths.isEmpty() ? row : extractFields(row);
+    }
+
+    /**
+     * @return true when the root path selects the rows themselves ($ or $[*]),
+     * so extraction can be applied row by row
+     */
+    public boolean isRowPath() {
+        String path = rootPath.getPath();
+        return "$".equals(path) || "$[*]".equals(path);
+    }
+
+    /**
+     * Same extractor restricted to some of its fields, in mapping order
+     */
+    public SourceExtractor select(Set<String> fields) {
+        Map<String, JsonPath> selected = new LinkedHashMap<>();
+        fieldPaths.forEach((field, path) -> {
+            if (fields.contains(field)) {
+                selected.put(field, path);
+            }
+        });
+        return new SourceExtractor(rootPath, Collections.unmodifiableMap(selected));
+    }
+
+    /**
+     * Columns read by the fields mapping, for pushing the projection down into SQL
+     *
+     * @return the distinct top-level properties, or an empty list when some field needs
+     * more than one column of the row (nested / filtered path) or the root is not the rows
+     */
+    public List<String> columns() {
+        if (fieldPaths.isEmpty() || !isRowPath()) {
+            return List.of();
+        }
+        Set<String> columns = new LinkedHashSet<>();
+        for (JsonPath path : fieldPaths.values()) {
+            Matcher column = COLUMN_PATH.matcher(path.getPath());
+            if (!column.matches()) {
+                return List.of();
+            }
+            columns.add(column.group(1));
+        }
+        return List.copyOf(columns);
+    }
+
+    public static Object parse(String body) {
+        return CONFIGURATION.jsonProvider().parse(body);
+    }
+
+    private Map<String, Object> extractFields(Object source) {
+        Map<String, Object> extracted = new LinkedHashMap<>();
+
+        fieldPaths.forEach((field, path) -> extracted.put(field, path.read(source, CONFIGURATION)));
+
+        return extracted;
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.demo.extractor;
+
+import com.jayway.jsonpath.PathNotFoundException;
+import lombok.Getter;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Streaming (StAX) evaluation of a simple dotted root path ($.Body.Response.Item) on an XML
+ * response. Only elements matching the full path are materialized, into the same Map / List
+ * tree Jackson XML would build (local names, repeated elements → list, text-only → string).
+ */
+public class XmlPathExtractor {
+
+    private static final Pattern SIMPLE_PATH = Pattern.compile("\\$(\\.[A-Za-z_][A-Za-z0-9_\\-]*)*");
+
+    private static final XMLInputFactory FACTORY = XMLInputFactory.newFactory();
+    static {
+        FACTORY.setProperty(XMLInputFactory.IS_COALESCING, true);
+        FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    // Tên element tính từ con của root element (root = Envelope)
+    @Getter
+    private final List<String> segments;
+
+    private XmlPathExtractor(List<String> segments) {
+        this.segments = segments;
+    }
+
+    /**
+     * @return the compiled extractor, or null when the path needs full JsonPath
+     * (filters, wildcards, indexes) and the response has to be parsed as a tree
+     */
+    public static XmlPathExtractor compile(String path) {
+        if (path == null || !SIMPLE_PATH.matcher(path).matches()) {
+            return null;
+        }
+        List<String> segments = path.length() == 1
+                ? List.of()
+                : List.copyOf(Arrays.asList(path.substring(2).split("\\.")));
+        return new XmlPathExtractor(segments);
+    }
+
+    /**
+     * @return the single matched element, or a list when the path matches repeated elements
+     */
+    public Object extract(InputStream xml) {
+        List<Object> matches = new ArrayList<>();
+        XMLStreamReader reader = null;
+        try {
+            reader = FACTORY.createXMLStreamReader(xml);
+
+            int depth = -1;
+            // Số segment đã khớp trên nhánh element đang mở
+            int matched = 0;
+
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    depth++;
+                    if (depth == 0) {
+                        if (segments.isEmpty()) {
+                            matches.add(readElement(reader));
+                            depth--;
+                        }
+                        continue;
+                    }
+                    if (matched == depth - 1 && segments.get(depth - 1).equals(reader.getLocalName())) {
+                        matched = depth;
+                        if (matched == segments.size()) {
+                            matches.add(readElement(reader));
+                            depth--;
+                            matched--;
+                        }
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    if (depth > 0 && matched == depth) {
+                        matched--;
+                    }
+                    depth--;
+                }
+            }
+        } catch (XMLStreamException e) {
+            throw new IllegalStateException("Invalid XML response: " + e.getMessage(), e);
+        } finally {
+            close(reader);
+        }
+
+        if (matches.isEmpty()) {
+            throw new PathNotFoundException("No element at path $." + String.join(".", segments));
+        }
+        return matches.size() == 1 ? matches.get(0) : matches;
+    }
+
+    // Reader đang ở START_ELEMENT, đọc đến END_ELEMENT tương ứng
+    private static Object readElement(XMLStreamReader reader) throws XMLStreamException {
+        Map<String, Object> element = new LinkedHashMap<>();
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            element.put(reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+        }
+
+        StringBuilder text = new StringBuilder();
+        while (true) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                String name = reader.getLocalName();
+                merge(element, name, readElement(reader));
+            } else if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA) {
+                text.append(reader.getText());
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                break;
+            }
+        }
+
+        if (element.isEmpty()) {
+            return text.toString();
+        }
+        String mixed = text.toString().trim();
+        if (!mixed.isEmpty()) {
+            element.put("", mixed);
+        }
+        return element;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void merge(Map<String, Object> element, String name, Object child) {
+        Object existing = element.get(name);
+        if (existing == null) {
+            element.put(name, child);
+        } else if (existing instanceof List<?> list) {
+            ((List<Object>) list).add(child);
+        } else {
+            List<Object> repeated = new ArrayList<>();
+            repeated.add(existing);
+            repeated.add(child);
+            element.put(name, repeated);
+        }
+    }
+
+    private static void close(XMLStreamReader reader) {
+        if (reader != null) {
+            try {
+                reader.close();
+            } catch (XMLStreamException ignored) {
+                // stream do caller quản lý
+            }
+        }
+    }
+}
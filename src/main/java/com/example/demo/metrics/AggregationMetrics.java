@@ -0,0 +1,98 @@
+package com.example.demo.metrics;
+
+import com.example.demo.dto.ApiCallResult;
+import com.example.demo.exception.ApiAggregationException;
+import com.example.demo.plan.GroupPlan;
+import com.example.demo.plan.SourcePlan;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency histograms and outcome counters of the aggregation engine:
+ * api.group.duration{group, outcome}, api.source.duration{group, source, type, outcome}
+ * and api.source.retries{group, source}. Meters are resolved once per group / source.
+ */
+@Component
+public class AggregationMetrics {
+
+    public static final String SUCCESS = "success";
+    public static final String FAILURE = "failure";
+    public static final String TIMEOUT = "timeout";
+    public static final String ERROR = "error";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, Map<String, Timer>> sourceTimers = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Timer>> groupTimers = new ConcurrentHashMap<>();
+
+    public void recordSource(SourcePlan source, long startNanos, ApiCallResult result) {
+        String outcome = result.isSuccess() ? SUCCESS : result.isTimedOut() ? TIMEOUT : FAILURE;
+        sourceTimers.computeIfAbsent(source.getName(), name -> sourceTimers(source))
+                .get(outcome)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Failed required source → failure, any other exception → error
+     */
+    public void recordGroup(GroupPlan group, long startNanos, Throwable error) {
+        String outcome = error == null ? SUCCESS : unwrap(error) instanceof ApiAggregationException ? FAILURE : ERROR;
+        groupTimers.computeIfAbsent(group.getName(), this::groupTimers)
+                .get(outcome)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public Counter retries(String sourceName) {
+        int dot = sourceName.indexOf('.');
+        return Counter.builder("api.source.retries")
+                .description("Retried attempts of a source call")
+                .tag("group", sourceName.substring(0, dot))
+                .tag("source", sourceName.substring(dot + 1))
+                .register(meterRegistry);
+    }
+
+    private Map<String, Timer> sourceTimers(SourcePlan source) {
+        String group = source.getName().substring(0, source.getName().indexOf('.'));
+        Map<String, Timer> timers = new ConcurrentHashMap<>();
+        for (String outcome : new String[]{SUCCESS, FAILURE, TIMEOUT}) {
+            timers.put(outcome, Timer.builder("api.source.duration")
+                    .description("Latency of one source call, cache hits and retries included")
+                    .tag("group", group)
+                    .tag("source", source.getKey())
+                    .tag("type", source.getType().name().toLowerCase())
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+        return timers;
+    }
+
+    private Map<String, Timer> groupTimers(String group) {
+        Map<String, Timer> timers = new ConcurrentHashMap<>();
+        for (String outcome : new String[]{SUCCESS, FAILURE, ERROR}) {
+            timers.put(outcome, Timer.builder("api.group.duration")
+                    .description("Latency of a whole group aggregation")
+                    .tag("group", group)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+        return timers;
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        while (e instanceof CompletionException && e.getCause() != null) {
+            e = e.getCause();
+        }
+        return e;
+    }
+}
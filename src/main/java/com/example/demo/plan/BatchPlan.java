@@ -0,0 +1,117 @@
+package com.example.demo.plan;
+
+import com.example.demo.config.ApiConfigRegistry;
+import com.example.demo.template.SqlQueryTemplate;
+import com.example.demo.template.UrlTemplate;
+import com.jayway.jsonpath.Configuration;
+import com.jayway.jsonpath.JsonPath;
+import com.jayway.jsonpath.Option;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compiled batch form of a source: one backend call for a chunk of ids, the response
+ * split back into the document a single-id call would have returned.
+ * REST: each id maps to one element. DB: each id maps to the list of its rows.
+ */
+@Getter
+public class BatchPlan {
+
+    private static final Configuration CONFIGURATION = Configuration.defaultConfiguration();
+
+    // Element thiếu key (hoặc không phải object) → null, bỏ qua element thay vì fail cả chunk
+    private static final Configuration KEY_CONFIGURATION = CONFIGURATION.addOptions(Option.SUPPRESS_EXCEPTIONS);
+
+    // Biến của từng item (vd. id) và placeholder danh sách trong url / query (vd. ids)
+    private final String variable;
+    private final String listVariable;
+    private final int maxSize;
+    private final String separator;
+
+    // REST
+    private final UrlTemplate url;
+
+    // DB, :?ids được mở rộng theo số id của chunk
+    private final SqlQueryTemplate query;
+
+    private final JsonPath path;
+    private final JsonPath key;
+
+    // DB: 1 id → list row, id không có row → list rỗng như query đơn
+    private final boolean grouped;
+
+    // Số id (đã pad) → SQL đã mở rộng
+    private final Map<Integer, String> expandedSql = new ConcurrentHashMap<>();
+
+    BatchPlan(SourceType type, ApiConfigRegistry.BatchConfig cfg) {
+        this.variable = cfg.getVariable();
+        this.listVariable = cfg.getVariable() + "s";
+        this.maxSize = cfg.getMaxSize();
+        this.separator = cfg.getSeparator();
+        this.url = type == SourceType.REST ? UrlTemplate.compile(cfg.getUrl()) : null;
+        this.query = type == SourceType.DB ? SqlQueryTemplate.compile(cfg.getQuery(), null) : null;
+        this.path = JsonPath.compile(cfg.getPath());
+        this.key = JsonPath.compile(cfg.getKey());
+        this.grouped = type == SourceType.DB;
+    }
+
+    /**
+     * Pad the chunk to the next power of two by repeating the last id, so a DB sees
+     * at most log2(maxSize) distinct IN statements instead of one per chunk size
+     */
+    public List<String> pad(List<String> ids) {
+        int size = ids.size() <= 1 ? ids.size() : Math.min(maxSize, Integer.highestOneBit(ids.size() - 1) << 1);
+        List<String> padded = new ArrayList<>(Math.max(size, ids.size()));
+        padded.addAll(ids);
+        while (padded.size() < size) {
+            padded.add(ids.get(ids.size() - 1));
+        }
+        return padded;
+    }
+
+    public String sql(int size) {
+        return expandedSql.computeIfAbsent(size, n -> query.expand(listVariable, n));
+    }
+
+    /**
+     * @return id → element (REST) or list of elements (DB) of the batch response
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> split(Object document) {
+        Object elements = path.read(document, CONFIGURATION);
+        List<Object> list = elements instanceof List<?> l ? (List<Object>) l : List.of(elements);
+
+        Map<String, Object> byId = new HashMap<>();
+        for (Object element : list) {
+            Object id = key.read(element, KEY_CONFIGURATION);
+            if (id == null) {
+                continue;
+            }
+            if (grouped) {
+                ((List<Object>) byId.computeIfAbsent(String.valueOf(id), k -> new ArrayList<>())).add(element);
+            } else {
+                byId.putIfAbsent(String.valueOf(id), element);
+            }
+        }
+        return byId;
+    }
+
+    /**
+     * Element for one id; a DB id without rows gets the empty result of a single query
+     */
+    public Object elementFor(Map<String, Object> split, String id) {
+        Object element = split.get(id);
+        if (element == null && grouped) {
+            return List.of();
+        }
+        if (element == null) {
+            throw new IllegalStateException("No batch result for " + variable + " " + id);
+        }
+        return element;
+    }
+}
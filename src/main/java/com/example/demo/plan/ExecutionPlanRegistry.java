@@ -0,0 +1,390 @@
+package com.example.demo.plan;
+
+import com.example.demo.cache.ResponseCacheManager;
+import com.example.demo.cache.SourceResponseCache;
+import com.example.demo.config.ApiConfigRegistry;
+import com.example.demo.config.ApiReloadProperties;
+import com.example.demo.config.DbSourceRegistry;
+import com.example.demo.extractor.JsonStreamExtractor;
+import com.example.demo.extractor.SourceExtractor;
+import com.example.demo.extractor.XmlPathExtractor;
+import com.example.demo.resilience.ResilienceRegistry;
+import com.example.demo.resilience.SourceGuard;
+import com.example.demo.template.Placeholders;
+import com.example.demo.template.SoapEnvelopeTemplate;
+import com.example.demo.template.SoapRequestBodyXml;
+import com.example.demo.template.UrlTemplate;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.bind.PropertySourcesPlaceholdersResolver;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Compiles every API group into an immutable PlanSet at startup and on reload.
+ * A reload compiles the new set completely before swapping it in, so a bad config
+ * leaves the running plans untouched and in-flight requests finish on the plans
+ * they started with. Datasource pools and HTTP connections are shared across
+ * generations; breaker state and cached responses start fresh.
+ */
+@Component
+@Slf4j
+public class ExecutionPlanRegistry {
+
+    @Autowired
+    private ApiConfigRegistry apiConfigRegistry;
+
+    @Autowired
+    private ApiReloadProperties reloadProperties;
+
+    @Autowired
+    private DbSourceRegistry dbSourceRegistry;
+
+    @Autowired
+    private ResponseCacheManager responseCacheManager;
+
+    @Autowired
+    private ResilienceRegistry resilienceRegistry;
+
+    @Autowired
+    private ResourceLoader resourceLoader;
+
+    @Autowired
+    private ConfigurableEnvironment environment;
+
+    private final AtomicReference<PlanSet> current = new AtomicReference<>();
+    private final AtomicLong versions = new AtomicLong();
+
+    private volatile WatchService watchService;
+
+    @PostConstruct
+    public void init() {
+        swap(compile(apiConfigRegistry));
+
+        if (reloadProperties.isWatch()) {
+            startWatcher();
+        }
+    }
+
+    public PlanSet getCurrent() {
+        return current.get();
+    }
+
+    public GroupPlan getGroup(String groupName) {
+        GroupPlan group = current.get().getGroups().get(groupName);
+        if (group == null) {
+            throw new IllegalArgumentException("API group not found: " + groupName);
+        }
+        return group;
+    }
+
+    /**
+     * Re-read the api block from the reload location, compile it and swap it in
+     */
+    public synchronized PlanSet reload() {
+        PlanSet next = compile(loadConfig());
+        swap(next);
+        log.info("Reloaded API plans v{} from {}", next.getVersion(), reloadProperties.getLocation());
+        return next;
+    }
+
+    private void swap(PlanSet plans) {
+        Map<String, SourceResponseCache> caches = new LinkedHashMap<>();
+        Map<String, SourceGuard> guards = new LinkedHashMap<>();
+        plans.getGroups().values().forEach(group -> group.getSources().forEach(source -> {
+            guards.put(source.getName(), source.getGuard());
+            if (source.getCache() != null) {
+                caches.put(source.getName(), source.getCache());
+            }
+        }));
+
+        current.set(plans);
+        responseCacheManager.publish(caches);
+        resilienceRegistry.publish(guards);
+    }
+
+    private PlanSet compile(ApiConfigRegistry config) {
+        Map<String, GroupPlan> groups = new LinkedHashMap<>();
+
+        if (config.getGroups() != null) {
+            config.getGroups().forEach((groupName, group) -> {
+                Map<String, ApiConfigRegistry.Source> configured =
+                        group.getSources() != null ? group.getSources() : Map.of();
+
+                List<SourcePlan> sources = new ArrayList<>();
+                configured.forEach((key, cfg) -> sources.add(compileSource(groupName, key, cfg, configured)));
+
+                groups.put(groupName, new GroupPlan(groupName, group.getTimeoutMs(),
+                        config.isStructuredResults(), group.getPriority(), group.getMaxConcurrentRequests(),
+                        sources, executionOrder(groupName, sources)));
+            });
+        }
+
+        return new PlanSet(versions.incrementAndGet(), groups);
+    }
+
+    private SourcePlan compileSource(
+            String groupName,
+            String key,
+            ApiConfigRegistry.Source cfg,
+            Map<String, ApiConfigRegistry.Source> groupSources
+    ) {
+        String name = groupName + "." + key;
+        SourceType type = SourceType.of(cfg.getType());
+        SourceExtractor extractor = SourceExtractor.compile(cfg);
+
+        JsonStreamExtractor jsonExtractor = null;
+        SoapEnvelopeTemplate soapEnvelope = null;
+        XmlPathExtractor xmlExtractor = null;
+        DbSourceRegistry.DbSource dbSource = null;
+
+        switch (type) {
+            case SOAP -> {
+                String envelope = cfg.getSoapBody() != null
+                        ? cfg.getSoapBody()
+                        : SoapRequestBodyXml.map.get(cfg.getSoapAction());
+                if (envelope == null) {
+                    throw new IllegalArgumentException(
+                            "Source " + name + ": no SOAP envelope for soapAction " + cfg.getSoapAction());
+                }
+                soapEnvelope = SoapEnvelopeTemplate.compile(envelope);
+                xmlExtractor = XmlPathExtractor.compile(cfg.getPath());
+            }
+            case DB -> {
+                if (cfg.isStream() && !extractor.isRowPath()) {
+                    throw new IllegalArgumentException(
+                            "Source " + name + ": stream requires path $ or $[*], got " + cfg.getPath());
+                }
+                dbSource = dbSourceRegistry.create(groupName, key, cfg);
+                if (cfg.isProjectionPushdown()) {
+                    dbSource = dbSource.withQuery(dbSource.getQuery().selectColumns(extractor.columns()));
+                }
+            }
+            case REST -> {
+                // URL dùng chung với source khác trong group → 1 fetch cho tất cả (SingleFlight), parse cả document
+                boolean sharedUrl = groupSources.entrySet().stream().anyMatch(other ->
+                        !other.getKey().equals(key) && Objects.equals(cfg.getUrl(), other.getValue().getUrl()));
+                jsonExtractor = sharedUrl ? null : JsonStreamExtractor.compile(cfg.getPath());
+            }
+        }
+
+        List<String> dependsOn = cfg.getDependsOn() != null ? cfg.getDependsOn() : List.of();
+        for (String upstream : dependsOn) {
+            ApiConfigRegistry.Source upstreamCfg = groupSources.get(upstream);
+            if (upstreamCfg == null) {
+                throw new IllegalArgumentException("Source " + name + ": dependsOn unknown source " + upstream);
+            }
+            if (upstreamCfg.isStream()) {
+                throw new IllegalArgumentException("Source " + name + ": cannot depend on streamed source " + upstream);
+            }
+        }
+
+        Set<String> placeholders = new LinkedHashSet<>();
+        placeholders.addAll(Placeholders.namesIn(cfg.getUrl()));
+        placeholders.addAll(Placeholders.namesIn(cfg.getQuery()));
+        if (cfg.getParameters() != null) {
+            cfg.getParameters().values().forEach(value -> placeholders.addAll(Placeholders.namesIn(value)));
+        }
+        if (soapEnvelope != null) {
+            placeholders.addAll(soapEnvelope.getVariables());
+        }
+
+        return new SourcePlan(
+                key,
+                name,
+                cfg,
+                extractor,
+                resilienceRegistry.create(name, cfg),
+                // Streamed DB source: row được đọc lúc ghi response, không có gì để cache
+                cfg.isStream() ? null : responseCacheManager.create(name, cfg),
+                type == SourceType.DB ? null : UrlTemplate.compile(cfg.getUrl()),
+                jsonExtractor,
+                soapEnvelope,
+                xmlExtractor,
+                dbSource,
+                dependsOn,
+                references(name, placeholders, dependsOn, groupSources.keySet()),
+                batch(name, type, cfg, dependsOn)
+        );
+    }
+
+    private static BatchPlan batch(String name, SourceType type, ApiConfigRegistry.Source cfg, List<String> dependsOn) {
+        ApiConfigRegistry.BatchConfig batch = cfg.getBatch();
+        if (batch == null) {
+            return null;
+        }
+        if (type == SourceType.SOAP || cfg.isStream() || !dependsOn.isEmpty()) {
+            throw new IllegalArgumentException(
+                    "Source " + name + ": batch is only supported on rest / non-streamed db sources without dependsOn");
+        }
+        if (batch.getMaxSize() < 1) {
+            throw new IllegalArgumentException("Source " + name + ": batch.maxSize must be positive");
+        }
+
+        String template = type == SourceType.REST ? batch.getUrl() : batch.getQuery();
+        if (template == null) {
+            throw new IllegalArgumentException(
+                    "Source " + name + ": batch needs " + (type == SourceType.REST ? "url" : "query"));
+        }
+        String listVariable = batch.getVariable() + "s";
+        if (!Set.of(listVariable).equals(Placeholders.namesIn(template))) {
+            throw new IllegalArgumentException(
+                    "Source " + name + ": batch " + template + " must use exactly the placeholder {" + listVariable + "}");
+        }
+        return new BatchPlan(type, batch);
+    }
+
+    // {source.path} với source thuộc group → reference, phải được khai báo trong dependsOn
+    private static List<SourceReference> references(
+            String name,
+            Set<String> placeholders,
+            List<String> dependsOn,
+            Set<String> groupKeys
+    ) {
+        List<SourceReference> references = new ArrayList<>();
+        for (String placeholder : placeholders) {
+            int dot = placeholder.indexOf('.');
+            if (dot < 0 || !groupKeys.contains(placeholder.substring(0, dot))) {
+                continue;
+            }
+            String upstream = placeholder.substring(0, dot);
+            if (!dependsOn.contains(upstream)) {
+                throw new IllegalArgumentException(
+                        "Source " + name + ": {" + placeholder + "} requires dependsOn " + upstream);
+            }
+            references.add(new SourceReference(placeholder, upstream, placeholder.substring(dot + 1)));
+        }
+        return references;
+    }
+
+    // Sắp xếp topo theo thứ tự khai báo, dependsOn vòng tròn bị từ chối
+    private static List<SourcePlan> executionOrder(String groupName, List<SourcePlan> sources) {
+        List<SourcePlan> ordered = new ArrayList<>();
+        Set<String> scheduled = new HashSet<>();
+
+        while (ordered.size() < sources.size()) {
+            boolean progressed = false;
+            for (SourcePlan source : sources) {
+                if (!scheduled.contains(source.getKey()) && scheduled.containsAll(source.getDependsOn())) {
+                    ordered.add(source);
+                    scheduled.add(source.getKey());
+                    progressed = true;
+                }
+            }
+            if (!progressed) {
+                List<String> blocked = sources.stream()
+                        .map(SourcePlan::getKey)
+                        .filter(key -> !scheduled.contains(key))
+                        .toList();
+                throw new IllegalArgumentException("Group " + groupName + ": dependsOn cycle between " + blocked);
+            }
+        }
+        return ordered;
+    }
+
+    private ApiConfigRegistry loadConfig() {
+        Resource resource = resourceLoader.getResource(reloadProperties.getLocation());
+        List<PropertySource<?>> sources;
+        try {
+            sources = new YamlPropertySourceLoader().load("api-reload", resource);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read " + reloadProperties.getLocation(), e);
+        }
+
+        Binder binder = new Binder(
+                ConfigurationPropertySources.from(sources),
+                new PropertySourcesPlaceholdersResolver(environment));
+
+        return binder.bind("api", ApiConfigRegistry.class)
+                .orElseThrow(() -> new IllegalArgumentException(
+                        "No api configuration in " + reloadProperties.getLocation()));
+    }
+
+    private void startWatcher() {
+        String location = reloadProperties.getLocation();
+        if (!location.startsWith("file:")) {
+            log.warn("api.reload.watch ignored, {} is not a file: location", location);
+            return;
+        }
+
+        Path file = Path.of(location.substring("file:".length())).toAbsolutePath();
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            file.getParent().register(watchService,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_CREATE);
+        } catch (IOException e) {
+            log.warn("Cannot watch {}: {}", file, e.getMessage());
+            return;
+        }
+
+        Thread.ofVirtual().name("api-plan-watcher").start(() -> watch(file));
+        log.info("Watching {} for API config changes", file);
+    }
+
+    private void watch(Path file) {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = key.pollEvents().stream()
+                        .anyMatch(event -> file.getFileName().equals(event.context()));
+                key.reset();
+
+                if (changed) {
+                    // Editor thường ghi file nhiều lần liên tiếp
+                    Thread.sleep(reloadProperties.getDebounce().toMillis());
+                    drain();
+                    try {
+                        reload();
+                    } catch (RuntimeException e) {
+                        log.error("API config reload failed, keeping plans v{}: {}",
+                                current.get().getVersion(), e.getMessage());
+                    }
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // shutdown
+        }
+    }
+
+    private void drain() {
+        WatchKey pending;
+        while ((pending = watchService.poll()) != null) {
+            pending.pollEvents();
+            pending.reset();
+        }
+    }
+
+    @PreDestroy
+    public void stopWatcher() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+}
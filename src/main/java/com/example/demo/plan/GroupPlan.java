@@ -0,0 +1,120 @@
+package com.example.demo.plan;
+
+import lombok.Getter;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Getter
+public class GroupPlan {
+
+    private final String name;
+    // null = không giới hạn
+    private final Long timeoutMs;
+    private final boolean structuredResults;
+    // Admission control
+    private final int priority;
+    private final int maxConcurrentRequests;
+
+    // Thứ tự khai báo trong config (thứ tự trong response)
+    private final List<SourcePlan> sources;
+    // Thứ tự topo: dependency luôn đứng trước source dùng nó
+    private final List<SourcePlan> executionOrder;
+    private final Map<String, SourcePlan> sourcesByKey;
+
+    GroupPlan(
+            String name,
+            Long timeoutMs,
+            boolean structuredResults,
+            int priority,
+            int maxConcurrentRequests,
+            List<SourcePlan> sources,
+            List<SourcePlan> executionOrder
+    ) {
+        this.name = name;
+        this.timeoutMs = timeoutMs;
+        this.structuredResults = structuredResults;
+        this.priority = priority;
+        this.maxConcurrentRequests = maxConcurrentRequests;
+        this.sources = List.copyOf(sources);
+        this.executionOrder = List.copyOf(executionOrder);
+
+        Map<String, SourcePlan> byKey = new LinkedHashMap<>();
+        sources.forEach(source -> byKey.put(source.getKey(), source));
+        this.sourcesByKey = Map.copyOf(byKey);
+    }
+
+    public SourcePlan getSource(String key) {
+        return sourcesByKey.get(key);
+    }
+
+    /**
+     * Plan running only the selected sources. Their dependencies still run but are not
+     * part of the response; a source other selected sources depend on cannot be narrowed,
+     * its references read the full value.
+     */
+    public GroupPlan select(SourceSelection selection) {
+        if (selection.isAll()) {
+            return this;
+        }
+
+        Set<String> selected = selection.getSources() != null ? selection.getSources() : sourcesByKey.keySet();
+        for (String key : selected) {
+            if (!sourcesByKey.containsKey(key)) {
+                throw new IllegalArgumentException("Unknown source " + key + " in group " + name);
+            }
+        }
+
+        // Source được chọn + dependency bắc cầu
+        Set<String> required = new HashSet<>();
+        Deque<String> pending = new ArrayDeque<>(selected);
+        while (!pending.isEmpty()) {
+            String key = pending.pop();
+            if (required.add(key)) {
+                pending.addAll(sourcesByKey.get(key).getDependsOn());
+            }
+        }
+
+        Map<String, SourcePlan> narrowed = new HashMap<>();
+        selection.getFields().forEach((key, fields) -> {
+            SourcePlan source = sourcesByKey.get(key);
+            if (source == null || !selected.contains(key)) {
+                throw new IllegalArgumentException("fields given for " + key + ", which is not a selected source");
+            }
+            Set<String> mapped = source.getExtractor().getFieldPaths().keySet();
+            for (String field : fields) {
+                if (!mapped.contains(field)) {
+                    throw new IllegalArgumentException("Source " + key + " has no mapped field " + field);
+                }
+            }
+            for (String dependent : required) {
+                if (sourcesByKey.get(dependent).getDependsOn().contains(key)) {
+                    throw new IllegalArgumentException(
+                            "Source " + key + " cannot be narrowed, " + dependent + " depends on it");
+                }
+            }
+            narrowed.put(key, source.narrow(fields));
+        });
+
+        return new GroupPlan(
+                name,
+                timeoutMs,
+                structuredResults,
+                priority,
+                maxConcurrentRequests,
+                sources.stream()
+                        .filter(source -> selected.contains(source.getKey()))
+                        .map(source -> narrowed.getOrDefault(source.getKey(), source))
+                        .toList(),
+                executionOrder.stream()
+                        .filter(source -> required.contains(source.getKey()))
+                        .map(source -> narrowed.getOrDefault(source.getKey(), source))
+                        .toList());
+    }
+}
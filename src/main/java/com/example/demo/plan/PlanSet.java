@@ -0,0 +1,37 @@
+package com.example.demo.plan;
+
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * One compiled generation of every group. Swapped as a whole on reload;
+ * requests keep the GroupPlan they started with.
+ */
+@Getter
+public class PlanSet {
+
+    private final long version;
+    private final Instant compiledAt;
+    private final Map<String, GroupPlan> groups;
+
+    PlanSet(long version, Map<String, GroupPlan> groups) {
+        this.version = version;
+        this.compiledAt = Instant.now();
+        this.groups = Map.copyOf(groups);
+    }
+
+    public Map<String, Object> describe() {
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("version", version);
+        description.put("compiledAt", compiledAt.toString());
+
+        Map<String, Object> groupSources = new LinkedHashMap<>();
+        groups.keySet().stream().sorted().forEach(name -> groupSources.put(name,
+                groups.get(name).getSources().stream().map(SourcePlan::getKey).toList()));
+        description.put("groups", groupSources);
+        return description;
+    }
+}
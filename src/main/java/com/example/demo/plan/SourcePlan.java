@@ -0,0 +1,143 @@
+package com.example.demo.plan;
+
+import com.example.demo.cache.SourceResponseCache;
+import com.example.demo.config.ApiConfigRegistry;
+import com.example.demo.config.DbSourceRegistry;
+import com.example.demo.extractor.JsonStreamExtractor;
+import com.example.demo.extractor.SourceExtractor;
+import com.example.demo.extractor.XmlPathExtractor;
+import com.example.demo.resilience.SourceGuard;
+import com.example.demo.template.SoapEnvelopeTemplate;
+import com.example.demo.template.SqlQueryTemplate;
+import com.example.demo.template.UrlTemplate;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Immutable, fully compiled form of one Source: everything a request needs is
+ * resolved here once, so the request path does no config lookup or parsing.
+ */
+@Getter
+public class SourcePlan {
+
+    private final String key;
+    // group.source, dùng cho log / stats
+    private final String name;
+    private final SourceType type;
+    private final ApiConfigRegistry.Source config;
+
+    private final SourceExtractor extractor;
+    private final SourceGuard guard;
+    // null = không cache
+    private final SourceResponseCache cache;
+
+    // REST / SOAP
+    private final UrlTemplate url;
+
+    // REST, null → path phức tạp hoặc URL dùng chung với source khác, parse cả document
+    private final JsonStreamExtractor jsonExtractor;
+
+    // SOAP, xmlExtractor null → path phức tạp, parse cả tree
+    private final SoapEnvelopeTemplate soapEnvelope;
+    private final XmlPathExtractor xmlExtractor;
+
+    // DB
+    private final DbSourceRegistry.DbSource dbSource;
+
+    // Source phải xong trước, và các {source.path} placeholder lấy giá trị từ chúng
+    private final List<String> dependsOn;
+    private final List<SourceReference> references;
+
+    // null = source không có dạng batch
+    private final BatchPlan batch;
+
+    // ?fields= của request, null = mọi field; phân biệt cache key với plan đầy đủ
+    private final List<String> fieldSelection;
+
+    // Field set → plan đã thu hẹp, số tổ hợp bị giới hạn bởi fields mapping
+    @Getter(AccessLevel.NONE)
+    private final Map<Set<String>, SourcePlan> narrowed = new ConcurrentHashMap<>();
+
+    SourcePlan(
+            String key,
+            String name,
+            ApiConfigRegistry.Source config,
+            SourceExtractor extractor,
+            SourceGuard guard,
+            SourceResponseCache cache,
+            UrlTemplate url,
+            JsonStreamExtractor jsonExtractor,
+            SoapEnvelopeTemplate soapEnvelope,
+            XmlPathExtractor xmlExtractor,
+            DbSourceRegistry.DbSource dbSource,
+            List<String> dependsOn,
+            List<SourceReference> references,
+            BatchPlan batch
+    ) {
+        this.key = key;
+        this.name = name;
+        this.type = SourceType.of(config.getType());
+        this.config = config;
+        this.extractor = extractor;
+        this.guard = guard;
+        this.cache = cache;
+        this.url = url;
+        this.jsonExtractor = jsonExtractor;
+        this.soapEnvelope = soapEnvelope;
+        this.xmlExtractor = xmlExtractor;
+        this.dbSource = dbSource;
+        this.dependsOn = List.copyOf(dependsOn);
+        this.references = List.copyOf(references);
+        this.batch = batch;
+        this.fieldSelection = null;
+    }
+
+    private SourcePlan(SourcePlan base, SourceExtractor extractor, DbSourceRegistry.DbSource dbSource, List<String> fieldSelection) {
+        this.key = base.key;
+        this.name = base.name;
+        this.type = base.type;
+        this.config = base.config;
+        this.extractor = extractor;
+        this.guard = base.guard;
+        this.cache = base.cache;
+        this.url = base.url;
+        this.jsonExtractor = base.jsonExtractor;
+        this.soapEnvelope = base.soapEnvelope;
+        this.xmlExtractor = base.xmlExtractor;
+        this.dbSource = dbSource;
+        this.dependsOn = base.dependsOn;
+        this.references = base.references;
+        this.batch = base.batch;
+        this.fieldSelection = fieldSelection;
+    }
+
+    /**
+     * Same source returning only some of its mapped fields. A DB source with a pushed
+     * down column list also selects only the columns of those fields.
+     */
+    public SourcePlan narrow(Set<String> fields) {
+        if (fields.containsAll(extractor.getFieldPaths().keySet())) {
+            return this;
+        }
+        return narrowed.computeIfAbsent(Set.copyOf(fields), selected -> {
+            SourceExtractor narrowedExtractor = extractor.select(selected);
+            DbSourceRegistry.DbSource narrowedDb = dbSource;
+            if (dbSource != null && config.isProjectionPushdown()) {
+                narrowedDb = dbSource.withQuery(
+                        SqlQueryTemplate.compile(config.getQuery(), config.getParameters())
+                                .selectColumns(narrowedExtractor.columns()));
+            }
+            return new SourcePlan(this, narrowedExtractor, narrowedDb,
+                    List.copyOf(narrowedExtractor.getFieldPaths().keySet()));
+        });
+    }
+
+    public boolean isOptional() {
+        return config.isOptional();
+    }
+}
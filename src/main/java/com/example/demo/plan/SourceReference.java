@@ -0,0 +1,42 @@
+package com.example.demo.plan;
+
+import com.jayway.jsonpath.Configuration;
+import com.jayway.jsonpath.JsonPath;
+import lombok.Getter;
+
+import java.util.Collection;
+import java.util.stream.Collectors;
+
+/**
+ * {source.path} placeholder compiled against the extracted value of an upstream source
+ */
+@Getter
+public class SourceReference {
+
+    private static final Configuration CONFIGURATION = Configuration.defaultConfiguration();
+
+    // Tên placeholder đầy đủ, vd. user-full-data.company.name
+    private final String name;
+    private final String source;
+    private final JsonPath path;
+
+    SourceReference(String name, String source, String path) {
+        this.name = name;
+        this.source = source;
+        this.path = JsonPath.compile("$." + path);
+    }
+
+    /**
+     * Resolve against the upstream value; a list (vd. ids) becomes a comma separated string
+     */
+    public String resolve(Object upstreamValue) {
+        Object value = path.read(upstreamValue, CONFIGURATION);
+        if (value == null) {
+            throw new IllegalStateException("Reference {" + name + "} resolved to null");
+        }
+        if (value instanceof Collection<?> values) {
+            return values.stream().map(String::valueOf).collect(Collectors.joining(","));
+        }
+        return String.valueOf(value);
+    }
+}
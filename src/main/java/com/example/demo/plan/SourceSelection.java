@@ -0,0 +1,65 @@
+package com.example.demo.plan;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Request-level selection: ?sources=user-cart,continents-soap runs only those sources
+ * (plus what they depend on), ?fields=user-with-dto.id,user-with-dto.age keeps only
+ * those mapped fields of a source.
+ */
+@Getter
+public class SourceSelection {
+
+    public static final SourceSelection ALL = new SourceSelection(null, Map.of());
+
+    // null = mọi source của group
+    private final Set<String> sources;
+    // source key → field được giữ lại
+    private final Map<String, Set<String>> fields;
+
+    private SourceSelection(Set<String> sources, Map<String, Set<String>> fields) {
+        this.sources = sources;
+        this.fields = fields;
+    }
+
+    public static SourceSelection parse(String sources, String fields) {
+        Set<String> selected = split(sources);
+        Map<String, Set<String>> selectedFields = new LinkedHashMap<>();
+
+        for (String entry : split(fields)) {
+            // Key của source không chứa '.', field sau dấu '.' đầu tiên
+            int dot = entry.indexOf('.');
+            if (dot <= 0 || dot == entry.length() - 1) {
+                throw new IllegalArgumentException("fields entry must be <source>.<field>, got " + entry);
+            }
+            selectedFields.computeIfAbsent(entry.substring(0, dot), key -> new LinkedHashSet<>())
+                    .add(entry.substring(dot + 1));
+        }
+
+        if (selected.isEmpty() && selectedFields.isEmpty()) {
+            return ALL;
+        }
+        return new SourceSelection(selected.isEmpty() ? null : Set.copyOf(selected), Map.copyOf(selectedFields));
+    }
+
+    public boolean isAll() {
+        return sources == null && fields.isEmpty();
+    }
+
+    private static Set<String> split(String value) {
+        Set<String> values = new LinkedHashSet<>();
+        if (value != null) {
+            Arrays.stream(value.split(","))
+                    .map(String::trim)
+                    .filter(v -> !v.isEmpty())
+                    .forEach(values::add);
+        }
+        return values;
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.demo.plan;
+
+public enum SourceType {
+    REST,
+    SOAP,
+    DB;
+
+    // Type không khai báo / không nhận ra → REST (như trước đây)
+    public static SourceType of(String type) {
+        if ("db".equalsIgnoreCase(type)) {
+            return DB;
+        }
+        if ("soap".equalsIgnoreCase(type)) {
+            return SOAP;
+        }
+        return REST;
+    }
+}
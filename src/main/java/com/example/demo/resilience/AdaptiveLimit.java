@@ -0,0 +1,67 @@
+package com.example.demo.resilience;
+
+import com.example.demo.config.ApiAdmissionProperties;
+
+/**
+ * Concurrency limit derived from request latency (gradient of a long-term and a short-term
+ * average RTT). While latency stays at its baseline the limit grows by sqrt(limit) headroom;
+ * once requests queue up downstream the short-term RTT rises and the limit shrinks with it.
+ */
+public class AdaptiveLimit {
+
+    // Short ~ 10 mẫu gần nhất, long ~ 500 mẫu
+    private static final double SHORT_ALPHA = 0.1;
+    private static final double LONG_ALPHA = 0.002;
+    // Cho phép RTT ngắn hạn cao hơn baseline 50% trước khi giảm limit
+    private static final double TOLERANCE = 1.5;
+
+    private final boolean adaptive;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double smoothing;
+
+    private double limit;
+    private double shortRtt;
+    private double longRtt;
+
+    public AdaptiveLimit(ApiAdmissionProperties properties) {
+        this.adaptive = properties.isAdaptive();
+        this.minLimit = Math.max(1, properties.getMinLimit());
+        this.maxLimit = Math.max(this.minLimit, properties.getMaxLimit());
+        this.smoothing = properties.getSmoothing();
+        this.limit = Math.max(minLimit, Math.min(maxLimit, properties.getInitialLimit()));
+    }
+
+    public synchronized int get() {
+        return (int) limit;
+    }
+
+    /**
+     * @param inFlight requests running when the sample completed
+     */
+    public synchronized void onSample(long rttNanos, int inFlight) {
+        if (!adaptive) {
+            return;
+        }
+        if (longRtt == 0) {
+            shortRtt = rttNanos;
+            longRtt = rttNanos;
+            return;
+        }
+        shortRtt += SHORT_ALPHA * (rttNanos - shortRtt);
+        longRtt += LONG_ALPHA * (rttNanos - longRtt);
+
+        // Latency giảm mạnh (vd. backend hồi phục) → baseline đuổi theo nhanh hơn
+        if (longRtt > 2 * shortRtt) {
+            longRtt *= 0.95;
+        }
+        // Tải thấp hơn nhiều so với limit: latency không nói gì về limit, không tăng thêm
+        if (inFlight < limit / 2) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRtt / shortRtt));
+        double target = limit * gradient + Math.sqrt(limit);
+        limit = Math.max(minLimit, Math.min(maxLimit, limit * (1 - smoothing) + target * smoothing));
+    }
+}
@@ -0,0 +1,251 @@
+package com.example.demo.resilience;
+
+import com.example.demo.config.ApiAdmissionProperties;
+import com.example.demo.exception.AdmissionRejectedException;
+import com.example.demo.plan.GroupPlan;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Admission control in front of the aggregation entry points.
+ * At most limit (AdaptiveLimit) aggregations run at once; the next maxQueue requests wait,
+ * higher group priority first, for at most maxQueueWait. Everything else is rejected
+ * immediately with 503 + Retry-After instead of queueing work nobody will receive.
+ * A group with maxConcurrentRequests gets 429 once it exceeds its own quota.
+ */
+@Component
+@Slf4j
+public class AdmissionController {
+
+    public static final String QUEUE_FULL = "queue-full";
+    public static final String QUEUE_TIMEOUT = "queue-timeout";
+    public static final String GROUP_LIMIT = "group-limit";
+
+    private static final CompletableFuture<Void> GRANTED = CompletableFuture.completedFuture(null);
+
+    // Timer hết hạn chờ của waiter, bị huỷ (và bỏ khỏi queue) khi waiter được cấp permit
+    private static final ScheduledThreadPoolExecutor TIMER = timer();
+
+    @Autowired
+    private ApiAdmissionProperties properties;
+
+    @Autowired
+    private Executor apiExecutor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private AdaptiveLimit limit;
+
+    // Ưu tiên cao trước, cùng ưu tiên thì FIFO; last() là waiter bị đẩy ra khi queue đầy
+    private final NavigableSet<Waiter> queue = new TreeSet<>(
+            Comparator.comparingInt(Waiter::priority).reversed().thenComparingLong(Waiter::sequence));
+    private long sequence;
+    private int inFlight;
+
+    private final Map<String, AtomicInteger> groupInFlight = new ConcurrentHashMap<>();
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder queued = new LongAdder();
+    private final Map<String, LongAdder> rejected = new ConcurrentHashMap<>();
+
+    private record Waiter(int priority, long sequence, String group, CompletableFuture<Void> permit) {
+    }
+
+    @PostConstruct
+    public void init() {
+        limit = new AdaptiveLimit(properties);
+        Gauge.builder("api.admission.limit", limit, AdaptiveLimit::get)
+                .description("Current concurrency limit of admitted aggregations")
+                .register(meterRegistry);
+        Gauge.builder("api.admission.in_flight", this, AdmissionController::inFlight)
+                .description("Aggregations currently admitted")
+                .register(meterRegistry);
+        Gauge.builder("api.admission.queued", this, AdmissionController::queuedRequests)
+                .description("Requests waiting for admission")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Run the aggregation once admitted; a rejected request gets a failed future with
+     * AdmissionRejectedException and its work is never started
+     */
+    public <T> CompletableFuture<T> admit(GroupPlan group, Supplier<CompletableFuture<T>> work) {
+        if (!properties.isEnabled()) {
+            return work.get();
+        }
+
+        AtomicInteger quota = null;
+        if (group.getMaxConcurrentRequests() > 0) {
+            quota = groupInFlight.computeIfAbsent(group.getName(), name -> new AtomicInteger());
+            if (quota.incrementAndGet() > group.getMaxConcurrentRequests()) {
+                quota.decrementAndGet();
+                return CompletableFuture.failedFuture(reject(group.getName(), GROUP_LIMIT, 429));
+            }
+        }
+
+        CompletableFuture<T> result;
+        try {
+            CompletableFuture<Void> permit = acquire(group);
+            result = permit == GRANTED
+                    ? run(work)
+                    // Permit được cấp từ callback của request khác → chạy tiếp trên executor
+                    : permit.thenComposeAsync(granted -> run(work), apiExecutor);
+        } catch (RuntimeException e) {
+            if (quota != null) {
+                quota.decrementAndGet();
+            }
+            throw e;
+        }
+
+        if (quota != null) {
+            AtomicInteger held = quota;
+            result.whenComplete((value, error) -> held.decrementAndGet());
+        }
+        return result;
+    }
+
+    private <T> CompletableFuture<T> run(Supplier<CompletableFuture<T>> work) {
+        long start = System.nanoTime();
+        CompletableFuture<T> future;
+        try {
+            future = work.get();
+        } catch (RuntimeException e) {
+            // Lỗi trước khi aggregation bắt đầu (vd. request sai), không phải mẫu latency
+            release(-1);
+            throw e;
+        }
+        return future.whenComplete((value, error) -> release(start));
+    }
+
+    private CompletableFuture<Void> acquire(GroupPlan group) {
+        Waiter evicted = null;
+        Waiter waiter;
+        synchronized (this) {
+            if (queue.isEmpty() && inFlight < limit.get()) {
+                inFlight++;
+                admitted.increment();
+                return GRANTED;
+            }
+
+            if (queue.size() >= properties.getMaxQueue()) {
+                // Queue đầy: request ưu tiên cao hơn thế chỗ waiter ưu tiên thấp nhất
+                Waiter lowest = queue.isEmpty() ? null : queue.last();
+                if (lowest == null || lowest.priority() >= group.getPriority()) {
+                    return CompletableFuture.failedFuture(reject(group.getName(), QUEUE_FULL, 503));
+                }
+                queue.remove(lowest);
+                evicted = lowest;
+            }
+
+            waiter = new Waiter(group.getPriority(), sequence++, group.getName(), new CompletableFuture<>());
+            queue.add(waiter);
+            queued.increment();
+        }
+
+        // Complete ngoài lock: callback của request bị từ chối chạy tiếp route ngay trên thread này
+        if (evicted != null) {
+            evicted.permit().completeExceptionally(reject(evicted.group(), QUEUE_FULL, 503));
+        }
+        // Request hết hạn chạy tiếp route (503) trên executor, không chiếm thread của timer
+        ScheduledFuture<?> timeout = TIMER.schedule(() -> apiExecutor.execute(() -> expire(waiter)),
+                properties.getMaxQueueWait().toNanos(), TimeUnit.NANOSECONDS);
+        waiter.permit().whenComplete((granted, error) -> timeout.cancel(false));
+        return waiter.permit();
+    }
+
+    private void expire(Waiter waiter) {
+        synchronized (this) {
+            if (!queue.remove(waiter)) {
+                // Đã được cấp permit hoặc đã bị đẩy ra
+                return;
+            }
+        }
+        waiter.permit().completeExceptionally(reject(waiter.group(), QUEUE_TIMEOUT, 503));
+    }
+
+    private void release(long startNanos) {
+        List<Waiter> granted = new ArrayList<>();
+        synchronized (this) {
+            inFlight--;
+            if (startNanos > 0) {
+                limit.onSample(System.nanoTime() - startNanos, inFlight + 1);
+            }
+            // Limit có thể vừa tăng → cấp cho nhiều waiter cùng lúc
+            while (!queue.isEmpty() && inFlight < limit.get()) {
+                granted.add(queue.pollFirst());
+                inFlight++;
+                admitted.increment();
+            }
+        }
+        granted.forEach(waiter -> waiter.permit().complete(null));
+    }
+
+    private static ScheduledThreadPoolExecutor timer() {
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(
+                1, Thread.ofPlatform().name("admission-timeout").daemon().factory());
+        timer.setRemoveOnCancelPolicy(true);
+        return timer;
+    }
+
+    private AdmissionRejectedException reject(String group, String reason, int status) {
+        rejected.computeIfAbsent(reason, r -> new LongAdder()).increment();
+        Counter.builder("api.admission.rejected")
+                .description("Requests shed by admission control")
+                .tag("group", group)
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+        log.debug("Admission rejected [{}]: {}", group, reason);
+        return new AdmissionRejectedException(group, reason, status,
+                Math.max(1, properties.getRetryAfter().toSeconds()));
+    }
+
+    private synchronized int inFlight() {
+        return inFlight;
+    }
+
+    private synchronized int queuedRequests() {
+        return queue.size();
+    }
+
+    // Số timer hết hạn chờ đang được lên lịch (test)
+    static int pendingTimeouts() {
+        return TIMER.getQueue().size();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", properties.isEnabled());
+        stats.put("limit", limit.get());
+        stats.put("inFlight", inFlight());
+        stats.put("queued", queuedRequests());
+        stats.put("admitted", admitted.sum());
+        stats.put("queuedTotal", queued.sum());
+        Map<String, Long> rejectedByReason = new LinkedHashMap<>();
+        rejected.forEach((reason, count) -> rejectedByReason.put(reason, count.sum()));
+        stats.put("rejected", rejectedByReason);
+        return stats;
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.demo.resilience;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * Caps concurrent calls to one source; calls beyond the cap fail fast
+ */
+public class Bulkhead {
+
+    private final int maxConcurrentCalls;
+    private final Semaphore permits;
+
+    public Bulkhead(int maxConcurrentCalls) {
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.permits = new Semaphore(maxConcurrentCalls);
+    }
+
+    public boolean tryAcquire() {
+        return permits.tryAcquire();
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    public int getMaxConcurrentCalls() {
+        return maxConcurrentCalls;
+    }
+
+    public int getActiveCalls() {
+        return maxConcurrentCalls - permits.availablePermits();
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.demo.resilience;
+
+import com.example.demo.config.ApiConfigRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Count-based circuit breaker.
+ * CLOSED: calls pass, outcomes go into a sliding window of the last N calls; once
+ * minimumCalls are recorded and the failure or slow-call rate reaches its threshold → OPEN.
+ * OPEN: calls fail fast until waitInOpen has elapsed → HALF_OPEN.
+ * HALF_OPEN: halfOpenCalls probes pass; their rates decide between CLOSED and OPEN.
+ * Every transition starts a new generation; outcomes of calls admitted in an older
+ * generation are ignored, so a slow call started while CLOSED never counts as a probe.
+ */
+@Slf4j
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    /**
+     * Admission of one call, handed back with its outcome
+     */
+    public record Permit(long generation) {
+    }
+
+    private final String name;
+    private final int minimumCalls;
+    private final int failureRateThreshold;
+    private final int slowCallRateThreshold;
+    private final long slowCallNanos;
+    private final long waitInOpenNanos;
+    private final int halfOpenCalls;
+
+    // Sliding window dạng ring buffer
+    private final boolean[] failed;
+    private final boolean[] slow;
+    private int next;
+    private int recorded;
+
+    private State state = State.CLOSED;
+    private long generation;
+    private long openedAt;
+    private int halfOpenPermits;
+    private int halfOpenRecorded;
+    private int halfOpenFailed;
+    private int halfOpenSlow;
+
+    public CircuitBreaker(String name, ApiConfigRegistry.CircuitBreakerConfig cfg) {
+        this.name = name;
+        this.minimumCalls = Math.min(cfg.getMinimumCalls(), cfg.getSlidingWindowSize());
+        this.failureRateThreshold = cfg.getFailureRateThreshold();
+        this.slowCallRateThreshold = cfg.getSlowCallRateThreshold();
+        this.slowCallNanos = cfg.getSlowCallDuration().toNanos();
+        this.waitInOpenNanos = cfg.getWaitInOpen().toNanos();
+        this.halfOpenCalls = cfg.getHalfOpenCalls();
+        this.failed = new boolean[cfg.getSlidingWindowSize()];
+        this.slow = new boolean[cfg.getSlidingWindowSize()];
+    }
+
+    /**
+     * @return the permit to report the outcome with, null when the call must fail fast
+     */
+    public synchronized Permit tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < waitInOpenNanos) {
+                return null;
+            }
+            transitionTo(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenPermits >= halfOpenCalls) {
+                return null;
+            }
+            halfOpenPermits++;
+        }
+        return new Permit(generation);
+    }
+
+    public synchronized void onSuccess(Permit permit, long durationNanos) {
+        record(permit, false, durationNanos >= slowCallNanos);
+    }
+
+    public synchronized void onError(Permit permit, long durationNanos) {
+        record(permit, true, durationNanos >= slowCallNanos);
+    }
+
+    /**
+     * The call ended without saying anything about the backend (vd. cancelled): no outcome is
+     * recorded, a half-open probe slot is given back
+     */
+    public synchronized void release(Permit permit) {
+        if (permit.generation() == generation && state == State.HALF_OPEN && halfOpenPermits > 0) {
+            halfOpenPermits--;
+        }
+    }
+
+    private void record(Permit permit, boolean callFailed, boolean callSlow) {
+        if (permit.generation() != generation) {
+            // Call được admit trước lần chuyển state gần nhất
+            return;
+        }
+        switch (state) {
+            case OPEN -> {
+                // Không có call nào được admit khi OPEN
+            }
+            case HALF_OPEN -> {
+                halfOpenRecorded++;
+                if (callFailed) {
+                    halfOpenFailed++;
+                }
+                if (callSlow) {
+                    halfOpenSlow++;
+                }
+                if (halfOpenRecorded >= halfOpenCalls) {
+                    boolean unhealthy = exceeded(halfOpenFailed, failureRateThreshold, halfOpenRecorded)
+                            || exceeded(halfOpenSlow, slowCallRateThreshold, halfOpenRecorded);
+                    transitionTo(unhealthy ? State.OPEN : State.CLOSED);
+                }
+            }
+            case CLOSED -> {
+                failed[next] = callFailed;
+                slow[next] = callSlow;
+                next = (next + 1) % failed.length;
+                recorded = Math.min(recorded + 1, failed.length);
+
+                if (recorded >= minimumCalls
+                        && (exceeded(count(failed), failureRateThreshold, recorded)
+                        || exceeded(count(slow), slowCallRateThreshold, recorded))) {
+                    transitionTo(State.OPEN);
+                }
+            }
+        }
+    }
+
+    private int count(boolean[] outcomes) {
+        int count = 0;
+        for (int i = 0; i < recorded; i++) {
+            if (outcomes[i]) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static boolean exceeded(int count, int thresholdPercent, int total) {
+        return total > 0 && count * 100 >= thresholdPercent * total;
+    }
+
+    private void transitionTo(State target) {
+        log.warn("Circuit breaker [{}] {} → {}", name, state, target);
+        state = target;
+        generation++;
+        halfOpenPermits = 0;
+        halfOpenRecorded = 0;
+        halfOpenFailed = 0;
+        halfOpenSlow = 0;
+        if (target == State.OPEN) {
+            openedAt = System.nanoTime();
+        }
+        if (target == State.CLOSED) {
+            next = 0;
+            recorded = 0;
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("state", state);
+        stats.put("recordedCalls", recorded);
+        stats.put("failedCalls", count(failed));
+        stats.put("slowCalls", count(slow));
+        return stats;
+    }
+}
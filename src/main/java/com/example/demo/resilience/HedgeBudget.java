@@ -0,0 +1,55 @@
+package com.example.demo.resilience;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Service-wide cap on hedged requests.
+ * Every primary request deposits maxRatio tokens (bounded), every hedge spends one,
+ * so hedges stay below maxRatio of the primary traffic.
+ */
+public class HedgeBudget {
+
+    private static final double MAX_TOKENS = 10;
+
+    private final double maxRatio;
+    private double tokens;
+
+    private final LongAdder primaries = new LongAdder();
+    private final LongAdder hedges = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public HedgeBudget(double maxRatio) {
+        this.maxRatio = maxRatio;
+    }
+
+    public synchronized void onPrimary() {
+        primaries.increment();
+        tokens = Math.min(MAX_TOKENS, tokens + maxRatio);
+    }
+
+    public synchronized boolean tryAcquire() {
+        if (tokens < 1) {
+            rejected.increment();
+            return false;
+        }
+        tokens -= 1;
+        hedges.increment();
+        return true;
+    }
+
+    public void onHedgeWin() {
+        hedgeWins.increment();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("primaries", primaries.sum());
+        stats.put("hedges", hedges.sum());
+        stats.put("hedgeWins", hedgeWins.sum());
+        stats.put("rejectedByBudget", rejected.sum());
+        return stats;
+    }
+}
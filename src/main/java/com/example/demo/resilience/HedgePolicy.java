@@ -0,0 +1,167 @@
+package com.example.demo.resilience;
+
+import com.example.demo.config.ApiConfigRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Hedged requests of one REST source.
+ * If the primary call has not completed after the hedge delay (fixed, or the observed
+ * latency percentile), an identical second call is sent when the global budget allows.
+ * The first successful response wins; the call fails only when both fail.
+ * The loser's future is cancelled, which aborts its HTTP request (see AbortableCall).
+ * Every call is a separate supplier invocation, so each one takes its own bulkhead permit.
+ */
+@Slf4j
+public class HedgePolicy {
+
+    private final String name;
+    private final Long fixedDelayMillis;
+    private final int percentile;
+    private final int minSamples;
+    private final HedgeBudget budget;
+    private final Executor executor;
+    private final LatencyTracker latencies = new LatencyTracker();
+
+    public HedgePolicy(String name, ApiConfigRegistry.HedgeConfig cfg, HedgeBudget budget, Executor executor) {
+        this.name = name;
+        this.fixedDelayMillis = cfg.getDelay() != null ? cfg.getDelay().toMillis() : null;
+        this.percentile = cfg.getPercentile();
+        this.minSamples = cfg.getMinSamples();
+        this.budget = budget;
+        this.executor = executor;
+    }
+
+    public <T> CompletableFuture<T> execute(Supplier<CompletableFuture<T>> call) {
+        budget.onPrimary();
+
+        CompletableFuture<T> primary = start(call);
+
+        long delay = hedgeDelayMillis();
+        if (delay < 0) {
+            return primary;
+        }
+
+        Race<T> race = new Race<>(primary);
+        primary.whenComplete((value, error) -> race.settle(value, error, false));
+
+        CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS, executor).execute(() -> {
+            if (!race.reserveHedge()) {
+                return;
+            }
+            log.debug("Hedging [{}] after {} ms", name, delay);
+
+            CompletableFuture<T> hedge = start(call);
+            race.hedgeStarted(hedge);
+            hedge.whenComplete((value, error) -> race.settle(value, error, true));
+        });
+
+        return race.result;
+    }
+
+    // Future gốc của call (không bọc) → cancel tới được call route
+    private <T> CompletableFuture<T> start(Supplier<CompletableFuture<T>> call) {
+        long start = System.nanoTime();
+        CompletableFuture<T> attempt;
+        try {
+            attempt = call.get();
+        } catch (RuntimeException e) {
+            attempt = CompletableFuture.failedFuture(e);
+        }
+        attempt.whenComplete((value, error) -> {
+            if (error == null) {
+                latencies.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }
+        });
+        return attempt;
+    }
+
+    /**
+     * @return the hedge delay, -1 when not enough latency samples are available yet
+     */
+    private long hedgeDelayMillis() {
+        if (fixedDelayMillis != null) {
+            return fixedDelayMillis;
+        }
+        if (latencies.size() < minSamples) {
+            return -1;
+        }
+        return latencies.percentile(percentile);
+    }
+
+    /**
+     * Primary vs hedge of one call. Launching the hedge and settling an outcome happen under
+     * the same lock, so a hedge is never sent once the result is decided.
+     */
+    private final class Race<T> {
+
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private final CompletableFuture<T> primary;
+        private CompletableFuture<T> hedge;
+        // Số call đang chạy: 1 (primary) hoặc 2 (primary + hedge)
+        private int running = 1;
+        private Throwable primaryError;
+        private boolean decided;
+
+        private Race(CompletableFuture<T> primary) {
+            this.primary = primary;
+            // Có kết quả (hoặc caller huỷ) → huỷ call còn lại
+            result.whenComplete((value, error) -> cancelLosers());
+        }
+
+        private synchronized boolean reserveHedge() {
+            if (decided || result.isDone() || !budget.tryAcquire()) {
+                return false;
+            }
+            running++;
+            return true;
+        }
+
+        private void hedgeStarted(CompletableFuture<T> started) {
+            synchronized (this) {
+                hedge = started;
+            }
+            if (result.isDone()) {
+                started.cancel(false);
+            }
+        }
+
+        private void settle(T value, Throwable error, boolean fromHedge) {
+            synchronized (this) {
+                running--;
+                if (decided) {
+                    return;
+                }
+                if (error != null && !fromHedge) {
+                    primaryError = error;
+                }
+                // Chỉ fail khi mọi call đã gửi đều fail
+                if (error != null && running > 0) {
+                    return;
+                }
+                // Từ đây không gửi hedge nữa
+                decided = true;
+            }
+            if (error != null) {
+                result.completeExceptionally(primaryError != null ? primaryError : error);
+            } else if (result.complete(value) && fromHedge) {
+                budget.onHedgeWin();
+            }
+        }
+
+        private void cancelLosers() {
+            CompletableFuture<T> started;
+            synchronized (this) {
+                started = hedge;
+            }
+            primary.cancel(false);
+            if (started != null) {
+                started.cancel(false);
+            }
+        }
+    }
+}
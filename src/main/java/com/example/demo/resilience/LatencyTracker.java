@@ -0,0 +1,46 @@
+package com.example.demo.resilience;
+
+import java.util.Arrays;
+
+/**
+ * Latencies of the most recent calls of one source, for percentile estimates
+ */
+public class LatencyTracker {
+
+    private static final int WINDOW = 256;
+    private static final int RECOMPUTE_EVERY = 32;
+
+    private final long[] samples = new long[WINDOW];
+    private int next;
+    private int count;
+    private int sinceSorted;
+    private long[] sorted = new long[0];
+
+    public synchronized void record(long millis) {
+        samples[next] = millis;
+        next = (next + 1) % WINDOW;
+        count = Math.min(count + 1, WINDOW);
+        sinceSorted++;
+    }
+
+    public synchronized int size() {
+        return count;
+    }
+
+    /**
+     * @return the percentile (0-100) of the recorded latencies, -1 when empty
+     */
+    public synchronized long percentile(int percentile) {
+        if (count == 0) {
+            return -1;
+        }
+        // Khi window đã đầy chỉ sort lại sau mỗi RECOMPUTE_EVERY mẫu mới
+        if (sinceSorted > 0 && (sorted.length < WINDOW || sinceSorted >= RECOMPUTE_EVERY)) {
+            sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            sinceSorted = 0;
+        }
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+}
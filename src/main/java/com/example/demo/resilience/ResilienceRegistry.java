@@ -0,0 +1,84 @@
+package com.example.demo.resilience;
+
+import com.example.demo.config.ApiConfigRegistry;
+import com.example.demo.metrics.AggregationMetrics;
+import com.example.demo.plan.SourceType;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+@Component
+@Slf4j
+public class ResilienceRegistry {
+
+    @Autowired
+    private ApiConfigRegistry apiConfigRegistry;
+
+    @Autowired
+    private Executor apiExecutor;
+
+    @Autowired
+    private AggregationMetrics aggregationMetrics;
+
+    @Autowired
+    private AdmissionController admissionController;
+
+    private HedgeBudget hedgeBudget;
+
+    // group.source → guard của plan set đang chạy, dùng cho stats
+    private volatile Map<String, SourceGuard> guards = Map.of();
+
+    @PostConstruct
+    public void init() {
+        hedgeBudget = new HedgeBudget(apiConfigRegistry.getMaxHedgeRatio());
+    }
+
+    /**
+     * Build breaker / bulkhead / retry / hedge policy of one source
+     */
+    public SourceGuard create(String name, ApiConfigRegistry.Source cfg) {
+        return new SourceGuard(
+                name,
+                cfg.getCircuitBreaker() != null ? new CircuitBreaker(name, cfg.getCircuitBreaker()) : null,
+                cfg.getBulkhead() != null ? new Bulkhead(cfg.getBulkhead().getMaxConcurrentCalls()) : null,
+                new RetryPolicy(cfg),
+                createHedgePolicy(name, cfg),
+                apiExecutor,
+                aggregationMetrics.retries(name)
+        );
+    }
+
+    /**
+     * Expose the guards of the active plan set
+     */
+    public void publish(Map<String, SourceGuard> active) {
+        guards = Map.copyOf(active);
+    }
+
+    private HedgePolicy createHedgePolicy(String name, ApiConfigRegistry.Source cfg) {
+        if (cfg.getHedge() == null) {
+            return null;
+        }
+        // Hedge gửi lại request giống hệt → chỉ cho REST GET
+        if (SourceType.of(cfg.getType()) != SourceType.REST) {
+            log.warn("Hedge ignored for non-REST source [{}]", name);
+            return null;
+        }
+        return new HedgePolicy(name, cfg.getHedge(), hedgeBudget, apiExecutor);
+    }
+
+    public Map<String, Map<String, Object>> stats() {
+        Map<String, Map<String, Object>> stats = new LinkedHashMap<>();
+        stats.put("admission", admissionController.stats());
+        stats.put("hedging", hedgeBudget.stats());
+        guards.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(e -> stats.put(e.getKey(), e.getValue().stats()));
+        return stats;
+    }
+}
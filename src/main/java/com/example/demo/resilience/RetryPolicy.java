@@ -0,0 +1,135 @@
+package com.example.demo.resilience;
+
+import com.example.demo.config.ApiConfigRegistry;
+import org.apache.camel.http.base.HttpOperationFailedException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+
+import java.io.IOException;
+import java.net.UnknownHostException;
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.util.Set;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Decides whether a failed attempt is retried and after which delay.
+ * Only idempotent sources are retried, and only on transient errors:
+ * IO failures, HTTP statuses in retryOnStatus, transient / connection-level SQL errors.
+ */
+public class RetryPolicy {
+
+    private final int maxRetries;
+    private final long delayMillis;
+    private final double multiplier;
+    private final boolean idempotent;
+    private final Set<Integer> retryOnStatus;
+
+    public RetryPolicy(ApiConfigRegistry.Source source) {
+        ApiConfigRegistry.RetryConfig cfg = source.getRetry() != null
+                ? source.getRetry()
+                : new ApiConfigRegistry.RetryConfig();
+
+        this.maxRetries = cfg.getMaxRetries();
+        this.delayMillis = cfg.getDelay().toMillis();
+        this.multiplier = cfg.getMultiplier();
+        this.retryOnStatus = Set.copyOf(cfg.getRetryOnStatus());
+        this.idempotent = cfg.getIdempotent() != null ? cfg.getIdempotent() : isIdempotentByDefault(source);
+    }
+
+    private static boolean isIdempotentByDefault(ApiConfigRegistry.Source source) {
+        if ("soap".equalsIgnoreCase(source.getType())) {
+            return false;
+        }
+        if ("db".equalsIgnoreCase(source.getType())) {
+            String query = source.getQuery() == null ? "" : source.getQuery().stripLeading().toUpperCase();
+            return query.startsWith("SELECT") || query.startsWith("WITH");
+        }
+        return true;
+    }
+
+    /**
+     * @param attempt number of the attempt that just failed, starting at 1
+     */
+    public boolean shouldRetry(Throwable error, int attempt) {
+        return idempotent && attempt <= maxRetries && isTransient(error);
+    }
+
+    /**
+     * Delay before the retry following the given failed attempt
+     */
+    public long delayAfter(int attempt) {
+        return (long) (delayMillis * Math.pow(multiplier, attempt - 1));
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    public boolean isTransient(Throwable error) {
+        for (Throwable e = error; e != null; e = e.getCause()) {
+            if (e instanceof HttpOperationFailedException http) {
+                return retryOnStatus.contains(http.getStatusCode());
+            }
+            if (e instanceof TransientDataAccessException
+                    || e instanceof RecoverableDataAccessException
+                    || e instanceof CannotGetJdbcConnectionException) {
+                return true;
+            }
+            if (e instanceof SQLException sql) {
+                return isTransientSql(sql);
+            }
+            if (e instanceof UnknownHostException) {
+                return false;
+            }
+            if (e instanceof IOException) {
+                return true;
+            }
+            if (e.getCause() == e) {
+                break;
+            }
+        }
+        return false;
+    }
+
+    // SQLState 08xxx: connection, 40xxx: rollback / deadlock / serialization
+    private static boolean isTransientSql(SQLException sql) {
+        if (sql instanceof SQLTransientException || sql instanceof SQLRecoverableException) {
+            return true;
+        }
+        String state = sql.getSQLState();
+        return state != null && (state.startsWith("08") || state.startsWith("40"));
+    }
+
+    /**
+     * Whether the error says something about the backend's health (counted by the circuit breaker):
+     * IO errors, timeouts, HTTP 5xx / 408 / 429 and transient / connection-level SQL errors.
+     * Other HTTP 4xx, unparseable or oversized bodies and SQL syntax / config errors are
+     * the caller's or the config's problem, not the backend's.
+     */
+    public static boolean isBackendFailure(Throwable error) {
+        for (Throwable e = error; e != null; e = e.getCause()) {
+            if (e instanceof HttpOperationFailedException http) {
+                int status = http.getStatusCode();
+                return status >= 500 || status == 408 || status == 429;
+            }
+            if (e instanceof TimeoutException || e instanceof IOException) {
+                return true;
+            }
+            if (e instanceof TransientDataAccessException
+                    || e instanceof RecoverableDataAccessException
+                    || e instanceof CannotGetJdbcConnectionException) {
+                return true;
+            }
+            if (e instanceof SQLException sql) {
+                return isTransientSql(sql);
+            }
+            if (e.getCause() == e) {
+                break;
+            }
+        }
+        return false;
+    }
+}
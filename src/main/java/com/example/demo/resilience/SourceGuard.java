@@ -0,0 +1,204 @@
+package com.example.demo.resilience;
+
+import com.example.demo.exception.SourceUnavailableException;
+import com.example.demo.service.Deadline;
+import io.micrometer.core.instrument.Counter;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Bulkhead + circuit breaker + retry / hedge policy of one source.
+ * Every attempt goes through the breaker, every request it sends (primary / hedge) through
+ * the bulkhead; retries are scheduled
+ * without holding a thread and stop once the aggregation deadline cannot cover the backoff.
+ */
+@Slf4j
+@Getter
+public class SourceGuard {
+
+    private final String name;
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+    private final RetryPolicy retryPolicy;
+    private final HedgePolicy hedgePolicy;
+    private final Executor executor;
+    private final Counter retries;
+
+    public SourceGuard(
+            String name,
+            CircuitBreaker circuitBreaker,
+            Bulkhead bulkhead,
+            RetryPolicy retryPolicy,
+            HedgePolicy hedgePolicy,
+            Executor executor,
+            Counter retries
+    ) {
+        this.name = name;
+        this.circuitBreaker = circuitBreaker;
+        this.bulkhead = bulkhead;
+        this.retryPolicy = retryPolicy;
+        this.hedgePolicy = hedgePolicy;
+        this.executor = executor;
+        this.retries = retries;
+    }
+
+    public <T> CompletableFuture<T> execute(Supplier<CompletableFuture<T>> call, Deadline deadline) {
+        return attempt(call, deadline, 1);
+    }
+
+    /**
+     * Admit one blocking call under the breaker and bulkhead, without retry or hedge:
+     * a streamed query holds its permits from opening the cursor until its rows are written,
+     * and has already written rows to the client when it fails.
+     *
+     * @throws SourceUnavailableException when the breaker or the bulkhead refuses the call
+     */
+    public Admission admit() {
+        CircuitBreaker.Permit permit = circuitBreaker != null ? circuitBreaker.tryAcquire() : null;
+        if (circuitBreaker != null && permit == null) {
+            throw new SourceUnavailableException(name, "circuit breaker " + circuitBreaker.getState());
+        }
+        if (bulkhead != null && !bulkhead.tryAcquire()) {
+            SourceUnavailableException rejected = new SourceUnavailableException(
+                    name, "bulkhead full (" + bulkhead.getMaxConcurrentCalls() + " concurrent calls)");
+            if (circuitBreaker != null) {
+                record(permit, 0, rejected);
+            }
+            throw rejected;
+        }
+        return new Admission(permit);
+    }
+
+    private <T> CompletableFuture<T> attempt(Supplier<CompletableFuture<T>> call, Deadline deadline, int attempt) {
+        return guarded(call).handle((value, error) -> {
+            if (error == null) {
+                return CompletableFuture.completedFuture(value);
+            }
+
+            Throwable cause = unwrap(error);
+            long delay = retryPolicy.delayAfter(attempt);
+
+            if (!retryPolicy.shouldRetry(cause, attempt) || (deadline != null && !deadline.allows(delay))) {
+                return CompletableFuture.<T>failedFuture(cause);
+            }
+
+            log.warn("Retry {}/{} [{}] in {} ms: {}",
+                    attempt, retryPolicy.getMaxRetries(), name, delay, cause.getMessage());
+            retries.increment();
+
+            Executor delayed = CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS, executor);
+            return CompletableFuture.runAsync(() -> { }, delayed)
+                    .thenCompose(v -> attempt(call, deadline, attempt + 1));
+        }).thenCompose(Function.identity());
+    }
+
+    private <T> CompletableFuture<T> guarded(Supplier<CompletableFuture<T>> call) {
+        CircuitBreaker.Permit permit = circuitBreaker != null ? circuitBreaker.tryAcquire() : null;
+        if (circuitBreaker != null && permit == null) {
+            return CompletableFuture.failedFuture(new SourceUnavailableException(
+                    name, "circuit breaker " + circuitBreaker.getState()));
+        }
+
+        // Mỗi request thật (primary / hedge) giữ 1 permit bulkhead riêng
+        Supplier<CompletableFuture<T>> bulkheaded = () -> withPermit(call);
+
+        long start = System.nanoTime();
+        CompletableFuture<T> result = hedgePolicy != null ? hedgePolicy.execute(bulkheaded) : bulkheaded.get();
+
+        if (circuitBreaker == null) {
+            return result;
+        }
+        return result.whenComplete((value, error) -> record(permit, System.nanoTime() - start, error));
+    }
+
+    private <T> CompletableFuture<T> withPermit(Supplier<CompletableFuture<T>> call) {
+        if (bulkhead != null && !bulkhead.tryAcquire()) {
+            return CompletableFuture.failedFuture(new SourceUnavailableException(
+                    name, "bulkhead full (" + bulkhead.getMaxConcurrentCalls() + " concurrent calls)"));
+        }
+
+        CompletableFuture<T> attempt;
+        try {
+            attempt = call.get();
+        } catch (RuntimeException e) {
+            attempt = CompletableFuture.failedFuture(e);
+        }
+
+        if (bulkhead != null) {
+            attempt.whenComplete((value, error) -> bulkhead.release());
+        }
+        // Trả về chính future của call → cancel (hedge thua) abort được request
+        return attempt;
+    }
+
+    private void record(CircuitBreaker.Permit permit, long duration, Throwable error) {
+        Throwable cause = error != null ? unwrap(error) : null;
+        if (cause instanceof CancellationException || cause instanceof SourceUnavailableException) {
+            // Call bị huỷ / không được gửi (bulkhead đầy) → không nói gì về backend
+            circuitBreaker.release(permit);
+        } else if (cause != null && RetryPolicy.isBackendFailure(cause)) {
+            circuitBreaker.onError(permit, duration);
+        } else {
+            circuitBreaker.onSuccess(permit, duration);
+        }
+    }
+
+    /**
+     * Permits of one admitted call, released with its outcome by complete()
+     */
+    public final class Admission {
+
+        private final CircuitBreaker.Permit permit;
+        private final long start = System.nanoTime();
+        private final AtomicBoolean completed = new AtomicBoolean();
+
+        private Admission(CircuitBreaker.Permit permit) {
+            this.permit = permit;
+        }
+
+        /**
+         * @param error failure of the call, null = success; only the first call counts
+         */
+        public void complete(Throwable error) {
+            if (!completed.compareAndSet(false, true)) {
+                return;
+            }
+            if (bulkhead != null) {
+                bulkhead.release();
+            }
+            if (circuitBreaker != null) {
+                record(permit, System.nanoTime() - start, error);
+            }
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        if (circuitBreaker != null) {
+            stats.put("circuitBreaker", circuitBreaker.stats());
+        }
+        if (bulkhead != null) {
+            stats.put("activeCalls", bulkhead.getActiveCalls());
+            stats.put("maxConcurrentCalls", bulkhead.getMaxConcurrentCalls());
+        }
+        return stats;
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        while (e instanceof CompletionException && e.getCause() != null) {
+            e = e.getCause();
+        }
+        return e;
+    }
+}
@@ -1,26 +1,71 @@
 package com.example.demo.route;
 
+import com.example.demo.cache.ResponseCacheManager;
+import com.example.demo.config.ApiReloadProperties;
+import com.example.demo.config.ApiTraceProperties;
+import com.example.demo.exception.AdmissionRejectedException;
 import com.example.demo.exception.ApiAggregationException;
+import com.example.demo.plan.ExecutionPlanRegistry;
+import com.example.demo.plan.GroupPlan;
+import com.example.demo.plan.SourceSelection;
+import com.example.demo.resilience.AdmissionController;
+import com.example.demo.resilience.ResilienceRegistry;
 import com.example.demo.service.ApiAggregationService;
+import com.example.demo.service.RequestTrace;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
 import org.apache.camel.Exchange;
-import org.apache.camel.LoggingLevel;
 import org.apache.camel.builder.RouteBuilder;
 import org.apache.camel.model.rest.RestBindingMode;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
-import org.apache.camel.http.base.HttpOperationFailedException;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
 
 @Component
+@Slf4j
 public class AggregateRoute extends RouteBuilder {
 
+    // Client có thể thu hẹp latency budget của group qua header này
+    public static final String REQUEST_TIMEOUT_HEADER = "X-Request-Timeout-Ms";
+
+    // Token của POST /admin/reload (api.reload.token)
+    public static final String ADMIN_TOKEN_HEADER = "X-Admin-Token";
+
     @Autowired
     private ApiAggregationService apiAggregationService;
 
+    @Autowired
+    private ResponseCacheManager responseCacheManager;
+
+    @Autowired
+    private ResilienceRegistry resilienceRegistry;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ExecutionPlanRegistry executionPlanRegistry;
+
+    @Autowired
+    private ApiTraceProperties traceProperties;
+
+    @Autowired
+    private AdmissionController admissionController;
+
+    @Autowired
+    private ApiReloadProperties reloadProperties;
+
     @Override
     public void configure() {
         // Báo lỗi cụ thể
@@ -30,30 +75,43 @@ public class AggregateRoute extends RouteBuilder {
                     ApiAggregationException ex =
                             exchange.getProperty(Exchange.EXCEPTION_CAUGHT, ApiAggregationException.class);
 
-                    Map<String, Object> body = new LinkedHashMap<>();
-                    body.put("message", "API aggregation failed");
-
-                    List<Map<String, Object>> failedApis = new ArrayList<>();
+                    exchange.getMessage().setBody(ex.describe());
+                    exchange.getMessage().setHeader(Exchange.HTTP_RESPONSE_CODE, 502);
+                })
+                .marshal().json();
 
-                    ex.getFailedApis().forEach(r -> {
-                        Map<String, Object> api = new LinkedHashMap<>();
-                        api.put("key", r.getKey());
-                        api.put("url", r.getUrl());
-                        api.put("reason", r.getError().getMessage());
-                        failedApis.add(api);
-                    });
+        // Quá tải → 503, group vượt quota → 429, client retry sau Retry-After
+        onException(AdmissionRejectedException.class)
+                .handled(true)
+                .process(exchange -> {
+                    AdmissionRejectedException ex =
+                            exchange.getProperty(Exchange.EXCEPTION_CAUGHT, AdmissionRejectedException.class);
 
-                    body.put("failedApis", failedApis);
+                    exchange.getMessage().setBody(ex.describe());
+                    exchange.getMessage().setHeader(Exchange.HTTP_RESPONSE_CODE, ex.getStatus());
+                    exchange.getMessage().setHeader("Retry-After", ex.getRetryAfterSeconds());
+                })
+                .marshal().json();
 
+        // Request không hợp lệ (?sources= / ?fields= / ?stream= sai, group không tồn tại)
+        onException(IllegalArgumentException.class)
+                .handled(true)
+                .process(exchange -> {
+                    Exception e = exchange.getProperty(Exchange.EXCEPTION_CAUGHT, Exception.class);
+                    Map<String, Object> body = new LinkedHashMap<>();
+                    body.put("message", "Invalid request");
+                    body.put("error", e.getMessage());
                     exchange.getMessage().setBody(body);
-                    exchange.getMessage().setHeader(Exchange.HTTP_RESPONSE_CODE, 502);
+                    exchange.getMessage().setHeader(Exchange.HTTP_RESPONSE_CODE, 400);
                 })
                 .marshal().json();
 
         restConfiguration()
                 .component("servlet")
                 .contextPath("/")
-                .bindingMode(RestBindingMode.off);
+                .bindingMode(RestBindingMode.off)
+                // Response streaming đã commit → binding không ghi status / header / body lên nữa
+                .endpointProperty("httpBinding", "#" + StreamedResponseBinding.BEAN_NAME);
 
 //        // API Call đến địa chỉ /test để direct vào "direct:aggregate-services"
 //        rest("/test")
@@ -90,10 +148,7 @@ public class AggregateRoute extends RouteBuilder {
 
         from("direct:test")
                 .routeId("aggregate-services-demo-with-id-route-test")
-                .process(exchange -> {
-                    Map<String, Object> result = apiAggregationService.aggregateApis("test");
-                    exchange.getMessage().setBody(result);
-                })
+                .process(aggregate("test", exchange -> Map.of()))
                 .marshal().json();
 
         rest("/demo")
@@ -102,62 +157,275 @@ public class AggregateRoute extends RouteBuilder {
 
         from("direct:demo")
                 .routeId("aggregate-services-demo-with-id-route")
-                .process(exchange -> {
+                .process(aggregate("demo", exchange -> {
                     // Ví dụ với truyền id
                     String id = exchange.getIn().getHeader("id", String.class);
-                    Map<String, String> pathVariables = Map.of("id", id);
-                    Map<String, Object> result = apiAggregationService.aggregateApis("demo", pathVariables);
-                    exchange.getMessage().setBody(result);
+                    return Map.of("id", id);
+                }))
+                .marshal().json();
+
+        // Nhiều id trong 1 request: [{"id": "1"}, {"id": "2"}] hoặc {"items": [...]}
+        rest("/demo")
+                .post("/_batch")
+                .to("direct:demoBatch");
+
+        from("direct:demoBatch")
+                .routeId("aggregate-services-demo-batch-route")
+                // Body / số item không hợp lệ → 400 qua onException(IllegalArgumentException)
+                .process(new AsyncAggregateProcessor(exchange -> {
+                    GroupPlan group = group("demo", exchange);
+                    List<Map<String, String>> items = batchItems(exchange);
+                    Long timeout = requestTimeout(exchange);
+                    // Cả batch được admit như 1 request, số item đã giới hạn bởi api.batch.max-items
+                    return admissionController.admit(group, () -> apiAggregationService.aggregateBatchAsync(
+                            group, items, timeout));
+                }))
+                .marshal().json();
+
+        // Hit/miss stats của response cache theo group.source
+        rest("/cache")
+                .get("/stats")
+                .to("direct:cacheStats");
+
+        from("direct:cacheStats")
+                .routeId("cache-stats-route")
+                .process(exchange -> exchange.getMessage().setBody(responseCacheManager.stats()))
+                .marshal().json();
+
+        // Circuit breaker / bulkhead state theo group.source
+        rest("/resilience")
+                .get("/state")
+                .to("direct:resilienceState");
+
+        from("direct:resilienceState")
+                .routeId("resilience-state-route")
+                .process(exchange -> exchange.getMessage().setBody(resilienceRegistry.stats()))
+                .marshal().json();
+
+        // Compile lại config (api.reload.location) và swap plan, request đang chạy giữ plan cũ.
+        // Chỉ khi api.reload.token được cấu hình và request gửi đúng token
+        rest("/admin")
+                .post("/reload")
+                .to("direct:reloadPlans");
+
+        from("direct:reloadPlans")
+                .routeId("reload-plans-route")
+                .process(exchange -> {
+                    String token = exchange.getMessage().getHeader(ADMIN_TOKEN_HEADER, String.class);
+                    // Không để servlet binding trả header token về client
+                    exchange.getMessage().removeHeader(ADMIN_TOKEN_HEADER);
+
+                    int denied = reloadDenied(token);
+                    if (denied != 0) {
+                        Map<String, Object> body = new LinkedHashMap<>();
+                        body.put("message", denied == 404
+                                ? "API config reload is disabled (api.reload.token not set)"
+                                : "Missing or invalid " + ADMIN_TOKEN_HEADER);
+                        exchange.getMessage().setBody(body);
+                        exchange.getMessage().setHeader(Exchange.HTTP_RESPONSE_CODE, denied);
+                        return;
+                    }
+
+                    try {
+                        exchange.getMessage().setBody(executionPlanRegistry.reload().describe());
+                    } catch (RuntimeException e) {
+                        // Config lỗi → giữ plan hiện tại
+                        Map<String, Object> body = new LinkedHashMap<>();
+                        body.put("message", "API config reload failed");
+                        body.put("error", e.getMessage());
+                        body.put("activeVersion", executionPlanRegistry.getCurrent().getVersion());
+                        exchange.getMessage().setBody(body);
+                        exchange.getMessage().setHeader(Exchange.HTTP_RESPONSE_CODE, 400);
+                    }
                 })
                 .marshal().json();
 
+        // Retry / circuit breaker / bulkhead theo source nằm ở SourceGuard (ApiAggregationService),
+        // các route call chỉ thực hiện đúng 1 attempt
         from("direct:callApi")
                 .routeId("call-api-route")
-                .onException(HttpOperationFailedException.class)
-                    .maximumRedeliveries(3) // retry 3 lần
-                    .redeliveryDelay(5000) // delay 5s
-                    .useExponentialBackOff()
-                    .retryAttemptedLogLevel(LoggingLevel.WARN)
-                    .logRetryAttempted(true)
-                    .handled(false)
-                .end()
-                .setHeader("Accept-Encoding", constant("identity"))
-                .toD("${header.url}?throwExceptionOnFailure=true")
-                .convertBodyTo(String.class);
+                // 1 endpoint / host, URL đầy đủ nằm ở header CamelHttpUri + CamelHttpQuery
+                .toD("${exchangeProperty.httpEndpoint}")
+                // Body đọc từ connection trong giới hạn maxResponseBytes, parse JSON theo path của source
+                .process(new BoundedResponseProcessor());
 
         from("direct:callApiSoap")
                 .routeId("call-api-soap-route")
-                .onException(HttpOperationFailedException.class)
-                    .maximumRedeliveries(3) // retry 3 lần
-                    .redeliveryDelay(5000) // delay 5s
-                    .useExponentialBackOff()
-                    .retryAttemptedLogLevel(LoggingLevel.WARN)
-                    .logRetryAttempted(true)
-                    .handled(false)
-                .end()
                 .setHeader(Exchange.HTTP_METHOD, constant("POST"))
                 .setHeader(Exchange.CONTENT_TYPE, constant("text/xml; charset=utf-8"))
-                .setHeader("Accept-Encoding", constant("identity"))
 //                .setHeader("SOAPAction", header("soapAction"))
-                .toD("${header.url}?throwExceptionOnFailure=true")
+                .toD("${exchangeProperty.httpEndpoint}")
+                // streamingXml: body được đọc bằng StAX theo path ngay tại đây, còn lại → byte[] (có giới hạn)
+                .process(new BoundedResponseProcessor())
 
-                // XML → JSON
-                .convertBodyTo(String.class)
-                .unmarshal().jacksonXml()
-                .marshal().json();
+                .filter(simple("${exchangeProperty.streamingXml} != true"))
+                    // XML → Map tree, chỉ convert sang JSON String khi không dùng structured result
+                    .unmarshal().jacksonXml()
+                    .choice()
+                        .when(simple("${exchangeProperty.structured} != true"))
+                            .marshal().json()
+                            .convertBodyTo(String.class)
+                    .end()
+                .end();
 
         from("direct:callDb")
                 .routeId("call-db-route")
-                .onException(Exception.class)
-                .maximumRedeliveries(3)
-                .redeliveryDelay(5000)
-                .useExponentialBackOff()
-                .retryAttemptedLogLevel(LoggingLevel.WARN)
-                .logRetryAttempted(true)
-                .handled(false)
-                .end()
-                .toD("sql:${header.query}?dataSource=#${header.dsName}&outputType=SelectList")
-                .marshal().json()
-                .convertBodyTo(String.class);
+                // SQL lấy từ body (:?name parameter lấy từ header), endpoint compile sẵn trong DbSourceRegistry
+                .toD("${header.sqlEndpoint}")
+                .choice()
+                    .when(simple("${exchangeProperty.structured} != true"))
+                        .marshal().json()
+                        .convertBodyTo(String.class)
+                .end();
+    }
+
+    /**
+     * Aggregate a group; with ?stream= / a streaming Accept header every source result is
+     * written to the servlet response as it completes instead of being marshalled at the end
+     */
+    private AsyncAggregateProcessor aggregate(String groupName, Function<Exchange, Map<String, String>> pathVariables) {
+        return new AsyncAggregateProcessor(exchange -> {
+            StreamingAggregateWriter.Format format = StreamingAggregateWriter.requestedFormat(exchange);
+            // Writer và aggregation dùng cùng 1 plan, kể cả khi reload xảy ra giữa chừng
+            GroupPlan group = group(groupName, exchange);
+            // Header sai → 400 trước khi admit / mở streaming response
+            Long timeout = requestTimeout(exchange);
+
+            // Request bị từ chối không gọi source nào, không mở streaming response
+            if (format == null) {
+                return admissionController.admit(group, () -> traced(exchange, trace -> apiAggregationService
+                        .aggregateApisAsync(group, pathVariables.apply(exchange), timeout, trace)));
+            }
+
+            // Header đã commit khi source đầu tiên xong → không có Server-Timing, _trace nằm trong record cuối
+            String requested = exchange.getIn().getHeader(traceProperties.getHeader(), String.class);
+            RequestTrace trace = "true".equalsIgnoreCase(requested) || "header".equalsIgnoreCase(requested)
+                    ? new RequestTrace()
+                    : null;
+
+            return admissionController.admit(group, () -> {
+                StreamingAggregateWriter writer = StreamingAggregateWriter.open(exchange, objectMapper, format, group);
+                exchange.setProperty(StreamingAggregateWriter.STREAMED_PROPERTY, true);
+                // Writer ghi cả response → bỏ qua phần còn lại của route (marshal)
+                exchange.setRouteStop(true);
+
+                return apiAggregationService
+                        .streamApisAsync(group, pathVariables.apply(exchange), timeout, trace, writer::write)
+                        .handle((results, error) -> {
+                            // Response đã commit → không để Camel ghi thêm error body
+                            if (error != null) {
+                                log.warn("Streaming aggregation [{}] aborted: {}", groupName, error.getMessage());
+                                writer.abort();
+                            } else {
+                                writer.finish(results, trace);
+                            }
+                            return null;
+                        });
+            });
+        });
+    }
+
+    /**
+     * X-Trace: true → Server-Timing header and a _trace section, X-Trace: header → header only.
+     * Sampled requests (api.trace.sample-rate) get the header only, the body stays unchanged.
+     */
+    private CompletableFuture<Map<String, Object>> traced(
+            Exchange exchange,
+            Function<RequestTrace, CompletableFuture<Map<String, Object>>> aggregation
+    ) {
+        String requested = exchange.getIn().getHeader(traceProperties.getHeader(), String.class);
+        boolean inBody = "true".equalsIgnoreCase(requested);
+        boolean traced = inBody || "header".equalsIgnoreCase(requested)
+                || (traceProperties.getSampleRate() > 0
+                        && ThreadLocalRandom.current().nextDouble() < traceProperties.getSampleRate());
+        if (!traced) {
+            return aggregation.apply(null);
+        }
+
+        RequestTrace trace = new RequestTrace();
+        return aggregation.apply(trace)
+                // Header cũng có trên response 502
+                .whenComplete((result, error) -> exchange.getMessage().setHeader("Server-Timing", trace.serverTiming()))
+                .thenApply(result -> {
+                    if (inBody) {
+                        result.put("_trace", trace.describe());
+                    }
+                    return result;
+                });
+    }
+
+    // ?sources= / ?fields= → plan chỉ gồm các source được yêu cầu
+    private GroupPlan group(String groupName, Exchange exchange) {
+        SourceSelection selection = SourceSelection.parse(
+                exchange.getIn().getHeader("sources", String.class),
+                exchange.getIn().getHeader("fields", String.class));
+        return executionPlanRegistry.getGroup(groupName).select(selection);
+    }
+
+    private List<Map<String, String>> batchItems(Exchange exchange) {
+        String payload = exchange.getIn().getBody(String.class);
+        if (payload == null || payload.isBlank()) {
+            throw new IllegalArgumentException("Batch body is empty");
+        }
+
+        JsonNode root;
+        try {
+            root = objectMapper.readTree(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Batch body is not valid JSON: " + e.getOriginalMessage());
+        }
+        JsonNode items = root.isObject() ? root.get("items") : root;
+        if (items == null || !items.isArray()) {
+            throw new IllegalArgumentException("Batch body must be an array of variable objects or {\"items\": [...]}");
+        }
+
+        List<Map<String, String>> variables = new ArrayList<>(items.size());
+        for (JsonNode item : items) {
+            if (!item.isObject()) {
+                throw new IllegalArgumentException("Batch item must be an object, got " + item);
+            }
+            Map<String, String> values = new LinkedHashMap<>();
+            item.fields().forEachRemaining(field -> values.put(field.getKey(), field.getValue().asText()));
+            variables.add(values);
+        }
+        return variables;
+    }
+
+    /**
+     * X-Request-Timeout-Ms as a positive number of milliseconds, null when absent
+     *
+     * @throws IllegalArgumentException (→ 400) for a non-numeric or non-positive value
+     */
+    private static Long requestTimeout(Exchange exchange) {
+        String header = exchange.getIn().getHeader(REQUEST_TIMEOUT_HEADER, String.class);
+        if (header == null || header.isBlank()) {
+            return null;
+        }
+        long timeout;
+        try {
+            timeout = Long.parseLong(header.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(REQUEST_TIMEOUT_HEADER + " must be a number of milliseconds, got " + header);
+        }
+        if (timeout <= 0) {
+            throw new IllegalArgumentException(REQUEST_TIMEOUT_HEADER + " must be positive, got " + header);
+        }
+        return timeout;
+    }
+
+    /**
+     * @return 0 when the reload may run, 404 when no token is configured, 401 for a wrong token
+     */
+    private int reloadDenied(String token) {
+        String expected = reloadProperties.getToken();
+        if (expected == null || expected.isBlank()) {
+            return 404;
+        }
+        // So sánh thời gian hằng → không đoán token qua latency
+        if (token == null || !MessageDigest.isEqual(
+                expected.getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8))) {
+            return 401;
+        }
+        return 0;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,57 @@
+package com.example.demo.route;
+
+import org.apache.camel.AsyncCallback;
+import org.apache.camel.Exchange;
+import org.apache.camel.support.AsyncProcessorSupport;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * Bridges a CompletableFuture aggregation onto Camel's async routing engine.
+ * The route continues from the future's completion callback instead of a waiting thread.
+ */
+public class AsyncAggregateProcessor extends AsyncProcessorSupport {
+
+    private final Function<Exchange, CompletableFuture<?>> aggregation;
+
+    public AsyncAggregateProcessor(Function<Exchange, CompletableFuture<?>> aggregation) {
+        this.aggregation = aggregation;
+    }
+
+    @Override
+    public boolean process(Exchange exchange, AsyncCallback callback) {
+        CompletableFuture<?> future;
+        try {
+            future = aggregation.apply(exchange);
+        } catch (Exception e) {
+            exchange.setException(e);
+            callback.done(true);
+            return true;
+        }
+
+        // Đã xong (vd. cache hit toàn bộ) → tiếp tục đồng bộ
+        if (future.isDone()) {
+            complete(exchange, future);
+            callback.done(true);
+            return true;
+        }
+
+        future.whenComplete((result, error) -> {
+            complete(exchange, future);
+            callback.done(false);
+        });
+        return false;
+    }
+
+    private static void complete(Exchange exchange, CompletableFuture<?> future) {
+        try {
+            exchange.getMessage().setBody(future.join());
+        } catch (CompletionException e) {
+            exchange.setException(e.getCause() != null ? e.getCause() : e);
+        } catch (Exception e) {
+            exchange.setException(e);
+        }
+    }
+}
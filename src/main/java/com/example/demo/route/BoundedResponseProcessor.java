@@ -0,0 +1,68 @@
+package com.example.demo.route;
+
+import com.example.demo.config.HttpEndpointResolver;
+import com.example.demo.exception.ResponseTooLargeException;
+import com.example.demo.extractor.BoundedInputStream;
+import com.example.demo.extractor.ResponseReader;
+import org.apache.camel.Exchange;
+import org.apache.camel.Processor;
+import org.apache.hc.core5.http.io.EofSensorInputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Reads the response body of a call route straight from the connection, while the exchange
+ * still owns it: at most maxResponseBytes (Content-Length checked first), through the
+ * source's ResponseReader when one is set, otherwise into a byte[] for the next route step.
+ * An oversized response fails the call with ResponseTooLargeException; the connection of a
+ * failed read is aborted instead of being drained.
+ */
+public class BoundedResponseProcessor implements Processor {
+
+    @Override
+    public void process(Exchange exchange) throws Exception {
+        InputStream raw = exchange.getMessage().getBody(InputStream.class);
+        if (raw == null) {
+            return;
+        }
+        long maxBytes = exchange.getProperty(HttpEndpointResolver.MAX_RESPONSE_BYTES_PROPERTY, Long.MAX_VALUE, Long.class);
+        String target = exchange.getMessage().getHeader(Exchange.HTTP_URI, String.class);
+
+        Long contentLength = exchange.getMessage().getHeader("Content-Length", Long.class);
+        if (contentLength != null && contentLength > maxBytes) {
+            abort(raw);
+            throw new ResponseTooLargeException(target, maxBytes);
+        }
+
+        BoundedInputStream body = new BoundedInputStream(raw, maxBytes, target);
+        ResponseReader reader = exchange.getProperty(HttpEndpointResolver.RESPONSE_READER_PROPERTY, ResponseReader.class);
+        try {
+            Object document;
+            if (reader != null) {
+                document = reader.read(body);
+                // Phần còn lại (ngoài path) vẫn phải nằm trong giới hạn; đọc hết → connection dùng lại được
+                body.transferTo(OutputStream.nullOutputStream());
+            } else {
+                document = body.readAllBytes();
+            }
+            exchange.getMessage().setBody(document);
+        } catch (RuntimeException | IOException e) {
+            // Quá lớn / body lỗi: close() của HttpClient sẽ đọc hết phần còn lại không giới hạn → abort
+            abort(raw);
+            throw e;
+        }
+    }
+
+    // Bỏ connection thay vì đọc hết body quá lớn khi exchange kết thúc (body gzip thì không abort được)
+    private static void abort(InputStream raw) {
+        if (raw instanceof EofSensorInputStream sensor) {
+            try {
+                sensor.abort();
+            } catch (IOException ignored) {
+                // Connection đã bị đóng
+            }
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.demo.route;
+
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.camel.Exchange;
+import org.apache.camel.component.servlet.ServletRestHttpBinding;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * REST servlet binding that leaves a streamed response alone: StreamingAggregateWriter has
+ * already written status, headers and body and closed the output stream, so the binding must
+ * not write the exchange (null body, an error after the first byte) on top of it.
+ */
+@Component(StreamedResponseBinding.BEAN_NAME)
+public class StreamedResponseBinding extends ServletRestHttpBinding {
+
+    public static final String BEAN_NAME = "streamedResponseBinding";
+
+    @Override
+    public void writeResponse(Exchange exchange, HttpServletResponse response) throws IOException {
+        if (exchange.getProperty(StreamingAggregateWriter.STREAMED_PROPERTY, false, Boolean.class)) {
+            return;
+        }
+        super.writeResponse(exchange, response);
+    }
+}
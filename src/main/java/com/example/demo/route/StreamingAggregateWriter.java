@@ -0,0 +1,234 @@
+package com.example.demo.route;
+
+import com.example.demo.dto.ApiCallResult;
+import com.example.demo.plan.GroupPlan;
+import com.example.demo.service.RequestTrace;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.camel.Exchange;
+import org.apache.camel.http.common.HttpMessage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Writes source results straight to the servlet output stream as they complete.
+ * Formats: NDJSON (one record per line), SSE (one event per source) or a single
+ * JSON object whose fields appear in completion order.
+ * Status is 200 once the first byte is out, so a failed required source is reported
+ * in the trailing record instead of a 502. For the same reason a requested trace is
+ * written as _trace in the trailing record rather than as a Server-Timing header.
+ */
+public class StreamingAggregateWriter {
+
+    // Exchange property: response đã được writer ghi trực tiếp, route / servlet binding không ghi nữa
+    public static final String STREAMED_PROPERTY = "streamed";
+
+    public enum Format {
+        NDJSON("application/x-ndjson"),
+        SSE("text/event-stream"),
+        JSON("application/json");
+
+        private final String contentType;
+
+        Format(String contentType) {
+            this.contentType = contentType;
+        }
+    }
+
+    private final JsonGenerator gen;
+    private final Format format;
+    private final GroupPlan group;
+
+    private StreamingAggregateWriter(JsonGenerator gen, Format format, GroupPlan group) {
+        this.gen = gen;
+        this.format = format;
+        this.group = group;
+    }
+
+    /**
+     * Streaming is opt-in: ?stream=ndjson|sse|json or an Accept header of
+     * application/x-ndjson / text/event-stream
+     *
+     * @return the requested format, or null for the regular buffered response
+     */
+    public static Format requestedFormat(Exchange exchange) {
+        String stream = exchange.getIn().getHeader("stream", String.class);
+        if (stream != null && !stream.isBlank()) {
+            return Format.valueOf(stream.trim().toUpperCase(Locale.ROOT));
+        }
+
+        String accept = exchange.getIn().getHeader("Accept", String.class);
+        if (accept != null) {
+            if (accept.contains(Format.NDJSON.contentType)) {
+                return Format.NDJSON;
+            }
+            if (accept.contains(Format.SSE.contentType)) {
+                return Format.SSE;
+            }
+        }
+        return null;
+    }
+
+    public static StreamingAggregateWriter open(
+            Exchange exchange,
+            ObjectMapper mapper,
+            Format format,
+            GroupPlan group
+    ) {
+        HttpServletResponse response = servletResponse(exchange);
+        response.setStatus(200);
+        response.setContentType(format.contentType);
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader("Cache-Control", "no-cache");
+
+        try {
+            JsonGenerator gen = mapper.getFactory().createGenerator(response.getOutputStream());
+            // NDJSON / SSE tự ghi separator giữa các record
+            gen.setRootValueSeparator(null);
+
+            if (format == Format.JSON) {
+                gen.writeStartObject();
+            }
+            // Commit header ngay, client không phải chờ source đầu tiên
+            gen.flush();
+            return new StreamingAggregateWriter(gen, format, group);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Write one source result; called from the completion thread of that source
+     */
+    public synchronized void write(ApiCallResult result) {
+        try {
+            if (format == Format.JSON) {
+                // Lỗi của source được gom vào failedApis / timedOutApis ở cuối
+                if (result.isSuccess()) {
+                    gen.writeFieldName(result.getKey());
+                    gen.writeObject(result.getValue());
+                }
+            } else if (result.isSuccess()) {
+                Map<String, Object> data = new LinkedHashMap<>();
+                data.put("source", result.getKey());
+                data.put("value", result.getValue());
+                record("result", data);
+            } else {
+                Map<String, Object> data = new LinkedHashMap<>();
+                data.put("source", result.getKey());
+                data.put("error", result.describeFailure());
+                data.put("timedOut", result.isTimedOut());
+                data.put("optional", isOptional(result));
+                record("error", data);
+            }
+            gen.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Write the trailing record and close the stream
+     *
+     * @param trace written as _trace in the trailing record, null = not traced
+     */
+    public synchronized void finish(List<ApiCallResult> results, RequestTrace trace) {
+        List<Map<String, Object>> failedApis = new ArrayList<>();
+        List<Map<String, Object>> timedOutApis = new ArrayList<>();
+        boolean complete = true;
+
+        for (ApiCallResult r : results) {
+            if (r.isSuccess()) {
+                continue;
+            }
+            complete &= isOptional(r);
+            if (r.isTimedOut()) {
+                timedOutApis.add(r.describeFailure());
+            } else {
+                failedApis.add(r.describeFailure());
+            }
+        }
+
+        try {
+            writeTrailer(complete, failedApis, timedOutApis, trace);
+            gen.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Close the stream after a failure; the response is already committed,
+     * the client sees a truncated body
+     */
+    public synchronized void abort() {
+        try {
+            gen.close();
+        } catch (IOException ignored) {
+            // client đã ngắt kết nối
+        }
+    }
+
+    private void writeTrailer(
+            boolean complete,
+            List<Map<String, Object>> failedApis,
+            List<Map<String, Object>> timedOutApis,
+            RequestTrace trace
+    ) throws IOException {
+        if (format == Format.JSON) {
+            if (!complete) {
+                gen.writeStringField("message", "API aggregation failed");
+            }
+            if (!failedApis.isEmpty()) {
+                gen.writeObjectField("failedApis", failedApis);
+            }
+            if (!timedOutApis.isEmpty()) {
+                gen.writeObjectField("timedOutApis", timedOutApis);
+            }
+            if (trace != null) {
+                gen.writeObjectField("_trace", trace.describe());
+            }
+            gen.writeEndObject();
+        } else {
+            Map<String, Object> end = new LinkedHashMap<>();
+            end.put("complete", complete);
+            if (trace != null) {
+                end.put("_trace", trace.describe());
+            }
+            record("end", end);
+        }
+    }
+
+    private void record(String event, Object data) throws IOException {
+        if (format == Format.SSE) {
+            gen.writeRaw("event: " + event + "\ndata: ");
+            gen.writeObject(data);
+            gen.writeRaw("\n\n");
+        } else {
+            gen.writeObject(data);
+            gen.writeRaw('\n');
+        }
+    }
+
+    private boolean isOptional(ApiCallResult result) {
+        return group.getSource(result.getKey()).isOptional();
+    }
+
+    private static HttpServletResponse servletResponse(Exchange exchange) {
+        if (exchange.getIn() instanceof HttpMessage http) {
+            return http.getResponse();
+        }
+        HttpServletResponse response = exchange.getIn().getHeader(Exchange.HTTP_SERVLET_RESPONSE, HttpServletResponse.class);
+        if (response == null) {
+            throw new IllegalStateException("Streaming requires a servlet HTTP exchange");
+        }
+        return response;
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.demo.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * One call route exchange that can be given up: when its deadline expires, it loses a hedge
+ * race or its future is cancelled, the future fails and the HTTP request is cancelled
+ * (connection discarded, the blocked read fails) instead of running to the read timeout.
+ * The HttpClient interceptor attaches the request and caps its response timeout by the deadline.
+ */
+public class AbortableCall {
+
+    // Exchange property của call route, HttpClient interceptor đọc qua Exchange trong HttpContext
+    public static final String EXCHANGE_PROPERTY = "abortableCall";
+
+    private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("call-deadline").daemon().factory());
+
+    // null = chỉ giới hạn bởi read timeout của source
+    private final Deadline deadline;
+
+    private Runnable cancelRequest;
+    private boolean aborted;
+    private ScheduledFuture<?> timer;
+
+    public AbortableCall(Deadline deadline) {
+        this.deadline = deadline;
+    }
+
+    /**
+     * Fail the future when the deadline expires, abort the request once the future
+     * completes exceptionally (timeout, cancel, failure)
+     */
+    public <T> CompletableFuture<T> bind(CompletableFuture<T> call) {
+        if (deadline != null) {
+            arm(call);
+        }
+        call.whenComplete((value, error) -> {
+            cancelTimer();
+            if (error != null) {
+                abort();
+            }
+        });
+        return call;
+    }
+
+    private synchronized void arm(CompletableFuture<?> call) {
+        if (call.isDone()) {
+            return;
+        }
+        timer = TIMER.schedule(() -> {
+            // Deadline shared (SingleFlight) có thể đã được kéo dài
+            if (!deadline.isExpired()) {
+                arm(call);
+                return;
+            }
+            call.completeExceptionally(new TimeoutException(
+                    "Deadline of " + deadline.getTimeoutMillis() + " ms exceeded"));
+        }, Math.max(1, deadline.remainingMillis()), TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void cancelTimer() {
+        if (timer != null) {
+            timer.cancel(false);
+        }
+    }
+
+    /**
+     * Register how to cancel the request in flight; runs it right away when already aborted
+     */
+    public void attach(Runnable cancelRequest) {
+        synchronized (this) {
+            if (!aborted) {
+                this.cancelRequest = cancelRequest;
+                return;
+            }
+        }
+        cancelRequest.run();
+    }
+
+    public void abort() {
+        Runnable cancel;
+        synchronized (this) {
+            if (aborted) {
+                return;
+            }
+            aborted = true;
+            cancel = cancelRequest;
+        }
+        if (cancel != null) {
+            cancel.run();
+        }
+    }
+
+    public synchronized boolean isAborted() {
+        return aborted;
+    }
+
+    public Deadline getDeadline() {
+        return deadline;
+    }
+}
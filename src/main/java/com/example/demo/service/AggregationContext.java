@@ -0,0 +1,70 @@
+package com.example.demo.service;
+
+import com.example.demo.plan.BatchPlan;
+import com.example.demo.plan.GroupPlan;
+import com.example.demo.plan.SourcePlan;
+import lombok.Getter;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Per-aggregation state shared by every source call of one request
+ */
+@Getter
+public class AggregationContext {
+
+    // Plan của group tại thời điểm request bắt đầu, reload không ảnh hưởng request đang chạy
+    private final GroupPlan group;
+    private final Map<String, String> pathVariables;
+
+    // Sources trỏ cùng target (URL + method + body / datasource + query) chỉ fetch 1 lần
+    private final SingleFlight fetches = new SingleFlight(true);
+
+    // null = không giới hạn thời gian
+    private final Deadline deadline;
+
+    // Batch request: source key → id → phần tử đã lấy bằng call batch
+    private final Map<String, Map<String, CompletableFuture<Object>>> prefetched;
+
+    // null = request không được trace
+    private final RequestTrace trace;
+
+    public AggregationContext(GroupPlan group, Map<String, String> pathVariables, Deadline deadline) {
+        this(group, pathVariables, deadline, Map.of(), null);
+    }
+
+    public AggregationContext(
+            GroupPlan group,
+            Map<String, String> pathVariables,
+            Deadline deadline,
+            Map<String, Map<String, CompletableFuture<Object>>> prefetched,
+            RequestTrace trace
+    ) {
+        this.group = group;
+        this.pathVariables = pathVariables;
+        this.deadline = deadline;
+        this.prefetched = prefetched;
+        this.trace = trace;
+    }
+
+    /**
+     * @return the timeline of this source, or null when the request is not traced
+     */
+    public SourceTrace trace(SourcePlan source) {
+        return trace != null ? trace.source(source.getKey()) : null;
+    }
+
+    /**
+     * @return the batch-fetched document for this source and variables, or null to call the source
+     */
+    public CompletableFuture<Object> prefetched(SourcePlan source, Map<String, String> variables) {
+        BatchPlan batch = source.getBatch();
+        Map<String, CompletableFuture<Object>> byId = prefetched.get(source.getKey());
+        if (batch == null || byId == null) {
+            return null;
+        }
+        String id = variables.get(batch.getVariable());
+        return id != null ? byId.get(id) : null;
+    }
+}
@@ -1,197 +1,813 @@
 package com.example.demo.service;
 
+import com.example.demo.cache.SourceResponseCache;
+import com.example.demo.config.ApiBatchProperties;
 import com.example.demo.config.ApiConfigRegistry;
-import com.example.demo.config.DataSourceFactory;
+import com.example.demo.config.DbSourceRegistry;
+import com.example.demo.config.HttpEndpointResolver;
 import com.example.demo.dto.ApiCallResult;
+import com.example.demo.dto.StreamedRows;
 import com.example.demo.exception.ApiAggregationException;
-import com.example.demo.template.SoapRequestBodyXml;
+import com.example.demo.extractor.JsonStreamExtractor;
+import com.example.demo.extractor.ResponseReader;
+import com.example.demo.extractor.SourceExtractor;
+import com.example.demo.extractor.XmlPathExtractor;
+import com.example.demo.metrics.AggregationMetrics;
+import com.example.demo.plan.BatchPlan;
+import com.example.demo.plan.ExecutionPlanRegistry;
+import com.example.demo.plan.GroupPlan;
+import com.example.demo.plan.SourcePlan;
+import com.example.demo.plan.SourceReference;
+import com.example.demo.plan.SourceType;
+import com.example.demo.resilience.SourceGuard;
+import com.example.demo.template.SqlQueryTemplate;
 import com.example.demo.util.Util;
-import com.jayway.jsonpath.JsonPath;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.camel.CamelContext;
 import org.apache.camel.Exchange;
+import org.apache.camel.Processor;
 import org.apache.camel.ProducerTemplate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 @Service
 @Slf4j
 public class ApiAggregationService {
 
     @Autowired
-    private ApiConfigRegistry apiConfigRegistry;
+    private ExecutionPlanRegistry executionPlanRegistry;
 
+    // Shared template, lifecycle do Camel Spring Boot quản lý
     @Autowired
-    private CamelContext camelContext;
+    private ProducerTemplate producerTemplate;
 
     @Autowired
     private Executor apiExecutor;
 
     @Autowired
-    private DataSourceFactory dataSourceFactory;
+    private HttpEndpointResolver httpEndpointResolver;
+
+    @Autowired
+    private ApiBatchProperties batchProperties;
+
+    @Autowired
+    private AggregationMetrics aggregationMetrics;
+
+    // In-flight fetches dùng chung giữa các request đồng thời
+    private final SingleFlight inFlightFetches = new SingleFlight(false);
 
     public Map<String, Object> aggregateApis(String groupName) {
         return aggregateApis(groupName, Map.of());
     }
 
+    /**
+     * Blocking variant for callers outside the async route pipeline
+     */
     public Map<String, Object> aggregateApis(String groupName, Map<String, String> pathVariables) {
+        try {
+            return aggregateApisAsync(groupName, pathVariables, null).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
 
-        ApiConfigRegistry.ApiGroup group =
-                apiConfigRegistry.getGroups().get(groupName);
+    /**
+     * Fan out every source of the group and complete once all of them are done
+     * or the latency budget (group timeoutMs / request timeout, whichever is smaller) runs out.
+     * No thread joins on a source call; results are assembled in the completion callback.
+     */
+    public CompletableFuture<Map<String, Object>> aggregateApisAsync(
+            String groupName,
+            Map<String, String> pathVariables,
+            Long requestTimeoutMs
+    ) {
+        return aggregateApisAsync(executionPlanRegistry.getGroup(groupName), pathVariables, requestTimeoutMs);
+    }
+
+    /**
+     * Aggregate an already resolved plan, vd. a GroupPlan.select of the requested sources
+     */
+    public CompletableFuture<Map<String, Object>> aggregateApisAsync(
+            GroupPlan group,
+            Map<String, String> pathVariables,
+            Long requestTimeoutMs
+    ) {
+        return aggregateApisAsync(group, pathVariables, requestTimeoutMs, null);
+    }
 
-        if (group == null) {
-            throw new IllegalArgumentException("API group not found: " + groupName);
+    /**
+     * @param trace records the timeline of every source call, null = not traced
+     */
+    public CompletableFuture<Map<String, Object>> aggregateApisAsync(
+            GroupPlan group,
+            Map<String, String> pathVariables,
+            Long requestTimeoutMs,
+            RequestTrace trace
+    ) {
+        long start = System.nanoTime();
+        List<CompletableFuture<ApiCallResult>> futures = fanOut(group, pathVariables, requestTimeoutMs, trace);
+
+        return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+                .thenApply(done -> assemble(group, futures.stream()
+                        .map(CompletableFuture::join)
+                        .toList()))
+                .whenComplete((result, error) -> {
+                    if (error != null) {
+                        release(futures);
+                    }
+                    aggregationMetrics.recordGroup(group, start, error);
+                });
+    }
+
+    /**
+     * Same fan-out as aggregateApisAsync, but every result is handed to the listener
+     * as soon as its source completes (in completion order) instead of being assembled.
+     * The returned future completes with all results once the last source is done.
+     *
+     * @param trace records the timeline of every source call, null = not traced
+     */
+    public CompletableFuture<List<ApiCallResult>> streamApisAsync(
+            GroupPlan group,
+            Map<String, String> pathVariables,
+            Long requestTimeoutMs,
+            RequestTrace trace,
+            Consumer<ApiCallResult> listener
+    ) {
+        long start = System.nanoTime();
+        List<CompletableFuture<ApiCallResult>> futures = fanOut(group, pathVariables, requestTimeoutMs, trace)
+                .stream()
+                .map(future -> future.thenApply(result -> {
+                    try {
+                        listener.accept(result);
+                    } finally {
+                        // Listener không ghi được (stream đã abort) → trả cursor của streamed source
+                        if (result.getValue() instanceof StreamedRows rows) {
+                            rows.close();
+                        }
+                    }
+                    return result;
+                }))
+                .toList();
+
+        return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+                .thenApply(done -> futures.stream()
+                        .map(CompletableFuture::join)
+                        .toList())
+                .whenComplete((results, error) -> aggregationMetrics.recordGroup(group, start, error));
+    }
+
+    /**
+     * Aggregate the group once per variable set, at most batchProperties.maxConcurrency at a time
+     * and under one shared latency budget. Sources with a batch form are called once per chunk
+     * of distinct ids and the response is split back per id. Each item gets its own result or
+     * error, one failing item does not fail the batch.
+     */
+    public CompletableFuture<List<Map<String, Object>>> aggregateBatchAsync(
+            GroupPlan group,
+            List<Map<String, String>> items,
+            Long requestTimeoutMs
+    ) {
+        if (items.size() > batchProperties.getMaxItems()) {
+            throw new IllegalArgumentException(
+                    "Batch of " + items.size() + " items exceeds max " + batchProperties.getMaxItems());
         }
 
-        ProducerTemplate template = camelContext.createProducerTemplate();
+        Deadline deadline = Deadline.of(group.getTimeoutMs(), requestTimeoutMs);
+
+        // Call batch chạy qua cùng guard / dedup như call thường
+        AggregationContext batchCtx = new AggregationContext(group, Map.of(), deadline);
+        Map<String, Map<String, CompletableFuture<Object>>> prefetched = new HashMap<>();
+        group.getExecutionOrder().stream()
+                .filter(source -> source.getBatch() != null)
+                .forEach(source -> prefetched.put(source.getKey(), prefetch(source, items, batchCtx)));
+
+        List<Supplier<CompletableFuture<Map<String, Object>>>> tasks = items.stream()
+                .<Supplier<CompletableFuture<Map<String, Object>>>>map(variables -> () -> {
+                    long start = System.nanoTime();
+                    AggregationContext ctx = new AggregationContext(group, variables, deadline, prefetched, null);
+                    List<CompletableFuture<ApiCallResult>> futures = fanOut(ctx);
+                    return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+                            .thenApply(done -> assemble(group, futures.stream()
+                                    .map(CompletableFuture::join)
+                                    .toList()))
+                            .whenComplete((result, error) -> {
+                                if (error != null) {
+                                    release(futures);
+                                }
+                                aggregationMetrics.recordGroup(group, start, error);
+                            })
+                            .handle((result, error) -> batchItem(variables, result, error));
+                })
+                .toList();
 
-        List<CompletableFuture<ApiCallResult>> futures =
-                group.getSources().entrySet().stream()
-                        .map(entry ->
-                                CompletableFuture.supplyAsync(
-                                        () -> callSingleApi(
-                                                entry.getKey(),
-                                                entry.getValue(),
-                                                pathVariables,
-                                                template
-                                        ),
-                                        apiExecutor
-                                )
-                        )
-                        .toList();
+        return runWindowed(tasks, batchProperties.getMaxConcurrency());
+    }
 
-        List<ApiCallResult> results = futures.stream()
-                .map(CompletableFuture::join)
+    // id → phần tử tương ứng trong response batch, mỗi chunk tối đa batch.maxSize id
+    private Map<String, CompletableFuture<Object>> prefetch(
+            SourcePlan source,
+            List<Map<String, String>> items,
+            AggregationContext batchCtx
+    ) {
+        BatchPlan batch = source.getBatch();
+        List<String> ids = items.stream()
+                .map(variables -> variables.get(batch.getVariable()))
+                .filter(Objects::nonNull)
+                .distinct()
                 .toList();
 
-        List<ApiCallResult> failedApis = results.stream()
+        Map<String, CompletableFuture<Object>> byId = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += batch.getMaxSize()) {
+            List<String> chunk = ids.subList(from, Math.min(ids.size(), from + batch.getMaxSize()));
+
+            CompletableFuture<Map<String, Object>> elements = callBatch(source, chunk, batchCtx)
+                    .thenApply(batch::split);
+
+            chunk.forEach(id -> byId.put(id, elements.thenApply(split -> batch.elementFor(split, id))));
+        }
+        return byId;
+    }
+
+    private CompletableFuture<Object> callBatch(SourcePlan source, List<String> ids, AggregationContext batchCtx) {
+        BatchPlan batch = source.getBatch();
+        try {
+            if (source.getType() == SourceType.DB) {
+                List<String> padded = batch.pad(ids);
+                String sql = batch.sql(padded.size());
+                Map<String, Object> parameters = new LinkedHashMap<>();
+                for (int i = 0; i < padded.size(); i++) {
+                    parameters.put(batch.getListVariable() + "_" + i, padded.get(i));
+                }
+                String target = "DB " + source.getConfig().getConfig().getUrl() + "\n" + sql + "\n" + parameters;
+
+                return fetchOnce(batchCtx, source, target, deadline ->
+                        queryDb(source, sql, parameters, batchCtx.getGroup().isStructuredResults(), null, deadline));
+            }
+
+            String url = batch.getUrl().resolve(Map.of(batch.getListVariable(), String.join(batch.getSeparator(), ids)));
+            return fetchOnce(batchCtx, source, "GET " + url, deadline -> getJson(source, url, null, null, deadline));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    // Aggregation lỗi → kết quả không được ghi, đóng cursor của các streamed source
+    private static void release(List<CompletableFuture<ApiCallResult>> futures) {
+        futures.forEach(future -> future.thenAccept(result -> {
+            if (result.getValue() instanceof StreamedRows rows) {
+                rows.close();
+            }
+        }));
+    }
+
+    private static Map<String, Object> batchItem(Map<String, String> variables, Map<String, Object> result, Throwable error) {
+        Map<String, Object> item = new LinkedHashMap<>();
+        item.put("variables", variables);
+        if (error == null) {
+            item.put("result", result);
+            return item;
+        }
+
+        Throwable cause = unwrap(error);
+        Map<String, Object> failure = new LinkedHashMap<>();
+        if (cause instanceof ApiAggregationException aggregation) {
+            failure.put("message", "API aggregation failed");
+            failure.put("failedApis", aggregation.getFailedApis().stream()
+                    .map(ApiCallResult::describeFailure)
+                    .toList());
+        } else {
+            failure.put("message", cause.getMessage());
+        }
+        item.put("error", failure);
+        return item;
+    }
+
+    /**
+     * Run the tasks with at most maxConcurrency in flight, results in task order
+     */
+    private static <T> CompletableFuture<List<T>> runWindowed(List<Supplier<CompletableFuture<T>>> tasks, int maxConcurrency) {
+        List<CompletableFuture<T>> results = tasks.stream().map(task -> new CompletableFuture<T>()).toList();
+        AtomicInteger next = new AtomicInteger();
+
+        Runnable worker = new Runnable() {
+            @Override
+            public void run() {
+                int index = next.getAndIncrement();
+                if (index >= tasks.size()) {
+                    return;
+                }
+                CompletableFuture<T> task;
+                try {
+                    task = tasks.get(index).get();
+                } catch (RuntimeException e) {
+                    task = CompletableFuture.failedFuture(e);
+                }
+                task.whenComplete((value, error) -> {
+                    if (error != null) {
+                        results.get(index).completeExceptionally(error);
+                    } else {
+                        results.get(index).complete(value);
+                    }
+                    run();
+                });
+            }
+        };
+
+        for (int i = 0; i < Math.min(Math.max(1, maxConcurrency), tasks.size()); i++) {
+            worker.run();
+        }
+
+        return CompletableFuture.allOf(results.toArray(CompletableFuture[]::new))
+                .thenApply(done -> results.stream().map(CompletableFuture::join).toList());
+    }
+
+    private List<CompletableFuture<ApiCallResult>> fanOut(
+            GroupPlan group,
+            Map<String, String> pathVariables,
+            Long requestTimeoutMs,
+            RequestTrace trace
+    ) {
+        return fanOut(new AggregationContext(
+                group,
+                pathVariables,
+                Deadline.of(group.getTimeoutMs(), requestTimeoutMs),
+                Map.of(),
+                trace
+        ));
+    }
+
+    private List<CompletableFuture<ApiCallResult>> fanOut(AggregationContext ctx) {
+        GroupPlan group = ctx.getGroup();
+        Map<String, String> pathVariables = ctx.getPathVariables();
+
+        // Theo thứ tự topo: future của dependency luôn có trước source dùng nó
+        Map<String, CompletableFuture<ApiCallResult>> calls = new HashMap<>();
+        for (SourcePlan source : group.getExecutionOrder()) {
+            calls.put(source.getKey(), source.getDependsOn().isEmpty()
+                    ? callSingleApi(source, ctx, pathVariables)
+                    : callAfterDependencies(source, ctx, calls));
+        }
+
+        return group.getSources().stream()
+                .map(source -> calls.get(source.getKey()))
+                .toList();
+    }
+
+    /**
+     * Start the source as soon as every upstream result is in, with {source.path}
+     * references resolved from those results. A failed upstream fails the source
+     * without calling it.
+     */
+    private CompletableFuture<ApiCallResult> callAfterDependencies(
+            SourcePlan source,
+            AggregationContext ctx,
+            Map<String, CompletableFuture<ApiCallResult>> calls
+    ) {
+        List<CompletableFuture<ApiCallResult>> upstream = source.getDependsOn().stream()
+                .map(calls::get)
+                .toList();
+
+        return CompletableFuture.allOf(upstream.toArray(CompletableFuture[]::new))
+                .thenCompose(done -> {
+                    Map<String, ApiCallResult> results = new HashMap<>();
+                    upstream.forEach(call -> {
+                        ApiCallResult result = call.join();
+                        results.put(result.getKey(), result);
+                    });
+
+                    for (ApiCallResult result : results.values()) {
+                        if (!result.isSuccess()) {
+                            return CompletableFuture.completedFuture(new ApiCallResult(
+                                    source.getKey(), source.getConfig().getUrl(), null,
+                                    new IllegalStateException("Dependency " + result.getKey() + " failed"),
+                                    result.isTimedOut()));
+                        }
+                    }
+
+                    Map<String, String> variables;
+                    try {
+                        variables = new HashMap<>(ctx.getPathVariables());
+                        for (SourceReference reference : source.getReferences()) {
+                            variables.put(reference.getName(),
+                                    reference.resolve(results.get(reference.getSource()).getValue()));
+                        }
+                    } catch (RuntimeException e) {
+                        return CompletableFuture.completedFuture(
+                                new ApiCallResult(source.getKey(), source.getConfig().getUrl(), null, e));
+                    }
+
+                    return callSingleApi(source, ctx, variables);
+                });
+    }
+
+    /**
+     * Required source failed → 502 via ApiAggregationException.
+     * Optional sources that failed / timed out are reported in failedApis / timedOutApis.
+     */
+    static Map<String, Object> assemble(GroupPlan group, List<ApiCallResult> results) {
+        List<ApiCallResult> failedRequired = results.stream()
                 .filter(r -> !r.isSuccess())
+                .filter(r -> !group.getSource(r.getKey()).isOptional())
                 .toList();
 
-        if (!failedApis.isEmpty()) {
-            throw new ApiAggregationException(failedApis);
+        if (!failedRequired.isEmpty()) {
+            throw new ApiAggregationException(failedRequired);
         }
 
         Map<String, Object> aggregated = new LinkedHashMap<>();
-        results.forEach(r -> aggregated.put(r.getKey(), r.getValue()));
+        List<Map<String, Object>> failedApis = new ArrayList<>();
+        List<Map<String, Object>> timedOutApis = new ArrayList<>();
+
+        results.forEach(r -> {
+            if (r.isSuccess()) {
+                aggregated.put(r.getKey(), r.getValue());
+            } else if (r.isTimedOut()) {
+                timedOutApis.add(r.describeFailure());
+            } else {
+                failedApis.add(r.describeFailure());
+            }
+        });
+
+        if (!failedApis.isEmpty()) {
+            aggregated.put("failedApis", failedApis);
+        }
+        if (!timedOutApis.isEmpty()) {
+            aggregated.put("timedOutApis", timedOutApis);
+        }
 
         return aggregated;
     }
 
-    private ApiCallResult callSingleApi(
-            String key,
-            ApiConfigRegistry.Source cfg,
-            Map<String, String> pathVariables,
-            ProducerTemplate template
+    private CompletableFuture<ApiCallResult> callSingleApi(
+            SourcePlan source,
+            AggregationContext ctx,
+            Map<String, String> variables
     ) {
-        String thread = Thread.currentThread().getName();
-        log.info("CALL API [{}] on thread: {}", key, thread);
+        String key = source.getKey();
+        ApiConfigRegistry.Source cfg = source.getConfig();
+        long start = System.nanoTime();
+        SourceTrace trace = ctx.trace(source);
+        mark(trace, "enqueue");
 
+        log.debug("CALL API [{}] on thread: {}", key, Thread.currentThread().getName());
+
+        CompletableFuture<ApiCallResult> call;
         try {
-            if ("db".equalsIgnoreCase(cfg.getType())) {
-                return callDb(key, cfg, pathVariables, template, thread);
-            } else if ("soap".equalsIgnoreCase(cfg.getType())) {
-                return callSoap(key, cfg, pathVariables, template, thread);
+            // Batch request: phần tử của id này đã được lấy bằng call batch chung
+            CompletableFuture<Object> prefetched = ctx.prefetched(source, variables);
+            if (prefetched != null) {
+                call = prefetched.thenApply(document -> mark(trace, "extract", source.getExtractor().extractFrom(document)))
+                        .thenApply(value -> new ApiCallResult(key, cfg.getUrl(), value, null));
             } else {
-                return callRest(key, cfg, pathVariables, template, thread);
+                call = switch (source.getType()) {
+                    case DB -> callDb(source, ctx, variables, trace);
+                    case SOAP -> callSoap(source, ctx, variables, trace);
+                    case REST -> callRest(source, ctx, variables, trace);
+                };
             }
         } catch (Exception e) {
-            return new ApiCallResult(key, cfg.getUrl(), null, e);
+            call = CompletableFuture.failedFuture(e);
         }
-    }
 
-    private ApiCallResult callDb(
-            String key,
-            ApiConfigRegistry.Source cfg,
-            Map<String, String> pathVariables,
-            ProducerTemplate template,
-            String thread
-    ) throws Exception {
+        Deadline deadline = ctx.getDeadline();
+        if (deadline != null) {
+            call = call.orTimeout(deadline.remainingMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        return call.exceptionally(e -> {
+            Throwable cause = unwrap(e);
+            if (cause instanceof TimeoutException && deadline != null) {
+                return new ApiCallResult(key, cfg.getUrl(), null, new TimeoutException(
+                        "Deadline of " + deadline.getTimeoutMillis() + " ms exceeded"), true);
+            }
+            return new ApiCallResult(key, cfg.getUrl(), null, cause);
+        }).whenComplete((result, error) -> {
+            mark(trace, "done");
+            if (result.getValue() instanceof StreamedRows rows) {
+                // Source chỉ xong khi row cuối đã được ghi → metric ghi lúc serialize kết thúc
+                rows.done().whenComplete((done, readError) -> aggregationMetrics.recordSource(source, start,
+                        readError == null || readError instanceof CancellationException
+                                ? result
+                                : new ApiCallResult(key, cfg.getUrl(), null, readError)));
+                return;
+            }
+            aggregationMetrics.recordSource(source, start, result);
+        });
+    }
 
-        DataSource dataSource = dataSourceFactory.getDataSource(cfg.getConfig());
-        String dsName = "ds-" + key;
-        camelContext.getRegistry().bind(dsName, dataSource);
+    private CompletableFuture<ApiCallResult> callDb(
+            SourcePlan source,
+            AggregationContext ctx,
+            Map<String, String> variables,
+            SourceTrace trace
+    ) {
+        String key = source.getKey();
+        ApiConfigRegistry.Source cfg = source.getConfig();
 
-        String finalQuery = Util.resolveTemplate(cfg.getQuery(), pathVariables);
+        DbSourceRegistry.DbSource dbSource = source.getDbSource();
+        SqlQueryTemplate query = dbSource.getQuery();
+        Map<String, Object> parameters = query.bind(variables);
         String dbUrl = cfg.getConfig().getUrl();
 
-        Exchange response = template.request("direct:callDb", ex -> {
-            ex.getIn().setHeader("query", finalQuery);
-            ex.getIn().setHeader("dsName", dsName);
-        });
+        boolean structured = ctx.getGroup().isStructuredResults();
+
+        if (cfg.isStream()) {
+            // Query + fetch đầu tiên chạy trong call (guard, deadline), chỉ việc đọc row để đến lúc serialize
+            // → không cache / dedup, không giữ row trong heap
+            CompletableFuture<ApiCallResult> call = new CompletableFuture<>();
+            apiExecutor.execute(() -> {
+                try {
+                    StreamedRows rows = StreamedRows.open(key, source.getGuard(), ctx.getDeadline(),
+                            dbSource.getDataSource(), query, parameters,
+                            cfg.getFetchSize(), cfg.getMaxRows(), source.getExtractor()::projectRow);
+                    // Call đã timeout trong lúc query chạy → kết quả bị bỏ, trả connection ngay
+                    if (!call.complete(new ApiCallResult(key, dbUrl, rows, null))) {
+                        rows.close();
+                    }
+                } catch (Exception e) {
+                    call.completeExceptionally(e);
+                }
+            });
+            return call;
+        }
 
-        String body = response.getMessage().getBody(String.class);
+        String statement = query.getSql() + "\n" + parameters;
+        String target = "DB " + dbUrl + "|" + cfg.getConfig().getUsername() + "\n" + statement;
 
-        log.info("DONE DB QUERY [{}] on thread: {}", key, thread);
+        return cached(source, dbUrl + "\n" + statement, () ->
+                fetchOnce(ctx, source, target, deadline ->
+                        queryDb(source, query.getSql(), parameters, structured, trace, deadline)
+                ).thenApply(document -> mark(trace, "extract", source.getExtractor().extractFrom(document)))
+        ).thenApply(value -> new ApiCallResult(key, dbUrl, value, null));
+    }
 
-        if (body == null || body.isBlank()) {
-            throw new RuntimeException("Empty response from database: " + dbUrl);
-        }
+    private CompletableFuture<Object> queryDb(
+            SourcePlan source,
+            String sql,
+            Map<String, Object> parameters,
+            boolean structured,
+            SourceTrace trace,
+            Deadline deadline
+    ) {
+        String dbUrl = source.getConfig().getConfig().getUrl();
+
+        return dispatch("direct:callDb", trace, deadline, ex -> {
+            // SQL cố định theo source, giá trị đi qua PreparedStatement parameter (header)
+            ex.getIn().setBody(sql);
+            ex.getIn().setHeader("sqlEndpoint", source.getDbSource().getEndpointUri());
+            parameters.forEach(ex.getIn()::setHeader);
+            ex.setProperty("structured", structured);
+        }, response -> {
+            Object body = response.getMessage().getBody();
 
-        Object value = Util.extractByJsonPath(body, cfg);
+            log.debug("DONE DB QUERY [{}] on thread: {}", source.getKey(), Thread.currentThread().getName());
+
+            if (body == null || (body instanceof String str && str.isBlank())) {
+                throw new RuntimeException("Empty response from database: " + dbUrl);
+            }
 
-        return new ApiCallResult(key, dbUrl, value, null);
+            return mark(trace, "parse", toDocument(body));
+        });
     }
 
-    private ApiCallResult callRest(
-            String key,
-            ApiConfigRegistry.Source cfg,
-            Map<String, String> pathVariables,
-            ProducerTemplate template,
-            String thread
-    ) throws Exception {
+    private CompletableFuture<ApiCallResult> callRest(
+            SourcePlan source,
+            AggregationContext ctx,
+            Map<String, String> variables,
+            SourceTrace trace
+    ) {
+        String key = source.getKey();
+        ApiConfigRegistry.Source cfg = source.getConfig();
 
-        String finalUrl = Util.resolveTemplate(cfg.getUrl(), pathVariables);
+        String finalUrl = source.getUrl().resolve(variables);
+        JsonStreamExtractor jsonExtractor = source.getJsonExtractor();
 
-        Exchange response = template.request("direct:callApi", ex ->
-                ex.getIn().setHeader("url", finalUrl)
-        );
+        // Streaming path: kết quả fetch đã là giá trị tại path → key phải gồm cả path
+        String target = "GET " + finalUrl + (jsonExtractor != null ? "\n@" + cfg.getPath() : "");
 
-        Integer status = response.getMessage()
-                .getHeader(Exchange.HTTP_RESPONSE_CODE, Integer.class);
-        String body = response.getMessage().getBody(String.class);
+        return cached(source, finalUrl, () ->
+                fetchOnce(ctx, source, target, deadline -> getJson(source, finalUrl, jsonExtractor, trace, deadline))
+                        .thenApply(document -> mark(trace, "extract", jsonExtractor != null
+                                ? source.getExtractor().project(document)
+                                : source.getExtractor().extractFrom(document)))
+        ).thenApply(value -> new ApiCallResult(key, finalUrl, value, null));
+    }
 
-        log.info("DONE API [{}] on thread: {}", key, thread);
+    /**
+     * @param jsonExtractor evaluates the root path while reading, null = parse the whole document
+     */
+    private CompletableFuture<Object> getJson(
+            SourcePlan source,
+            String url,
+            JsonStreamExtractor jsonExtractor,
+            SourceTrace trace,
+            Deadline deadline
+    ) {
+        ResponseReader reader = jsonExtractor != null ? jsonExtractor::extract : JsonStreamExtractor::parse;
+        return dispatch("direct:callApi", trace, deadline, ex -> {
+            httpEndpointResolver.prepare(ex, source.getConfig(), url);
+            ex.setProperty(HttpEndpointResolver.RESPONSE_READER_PROPERTY, reader);
+        }, response -> {
+            Integer status = response.getMessage()
+                    .getHeader(Exchange.HTTP_RESPONSE_CODE, Integer.class);
+            // Đã parse từ byte trong call route (BoundedResponseProcessor)
+            Object body = response.getMessage().getBody();
 
-        Util.validateHttpResponse(status, body, finalUrl);
+            log.debug("DONE API [{}] on thread: {}", source.getKey(), Thread.currentThread().getName());
 
-        Object value = Util.extractByJsonPath(body, cfg);
+            Util.validateHttpResponse(status, body, url);
 
-        return new ApiCallResult(key, finalUrl, value, null);
+            return mark(trace, "parse", body);
+        });
     }
 
-    private ApiCallResult callSoap(
-            String key,
-            ApiConfigRegistry.Source cfg,
-            Map<String, String> pathVariables,
-            ProducerTemplate template,
-            String thread
-    ) throws Exception {
+    private CompletableFuture<ApiCallResult> callSoap(
+            SourcePlan source,
+            AggregationContext ctx,
+            Map<String, String> variables,
+            SourceTrace trace
+    ) {
+        String key = source.getKey();
+        ApiConfigRegistry.Source cfg = source.getConfig();
+
+        String finalUrl = source.getUrl().resolve(variables);
+        String soapBody = source.getSoapEnvelope().render(variables);
+        XmlPathExtractor xmlExtractor = source.getXmlExtractor();
+
+        boolean structured = ctx.getGroup().isStructuredResults();
+
+        // StAX: kết quả fetch đã là phần tử khớp path → key phải gồm cả path
+        String target = "POST " + finalUrl + "\n" + soapBody
+                + (xmlExtractor != null ? "\n@" + cfg.getPath() : "");
+
+        return cached(source, finalUrl + "\n" + soapBody, () ->
+                fetchOnce(ctx, source, target, deadline ->
+                        dispatch("direct:callApiSoap", trace, deadline, ex -> {
+                            httpEndpointResolver.prepare(ex, cfg, finalUrl);
+                            ex.setProperty("structured", structured);
+                            ex.setProperty("streamingXml", xmlExtractor != null);
+                            if (xmlExtractor != null) {
+                                ex.setProperty(HttpEndpointResolver.RESPONSE_READER_PROPERTY,
+                                        (ResponseReader) xmlExtractor::extract);
+                            }
+                            ex.getIn().setBody(soapBody);
+                        }, response -> {
+                            Integer status = response.getMessage()
+                                    .getHeader(Exchange.HTTP_RESPONSE_CODE, Integer.class);
+
+                            log.debug("DONE API [{}] on thread: {}", key, Thread.currentThread().getName());
+
+                            Object body = response.getMessage().getBody();
+                            Util.validateHttpResponse(status, body, finalUrl);
+
+                            // StAX đã chạy trong call route → body là phần tử khớp path
+                            return mark(trace, "parse", xmlExtractor != null ? body : toDocument(body));
+                        })
+                ).thenApply(document -> mark(trace, "extract", xmlExtractor != null
+                        ? source.getExtractor().project(document)
+                        : source.getExtractor().extractFrom(document)))
+        ).thenApply(value -> new ApiCallResult(key, finalUrl, value, null));
+    }
+
+    /**
+     * Send an exchange to a call route without waiting for it.
+     * camel-http is a synchronous producer: the whole call (connection, request, body read)
+     * runs inside the apiExecutor task (virtual threads), so the fan-out stays parallel
+     * and api.executor.max-concurrency caps the calls actually in flight.
+     * The HTTP request is aborted once the deadline expires or the returned future is cancelled
+     * (lost hedge), so onResponse is applied here rather than on a derived future.
+     *
+     * @param deadline budget of this call, null = source timeouts only
+     */
+    private CompletableFuture<Object> dispatch(
+            String endpoint,
+            SourceTrace trace,
+            Deadline deadline,
+            Processor processor,
+            Function<Exchange, Object> onResponse
+    ) {
+        AbortableCall call = new AbortableCall(deadline);
+        Processor prepare = ex -> {
+            ex.setProperty(AbortableCall.EXCHANGE_PROPERTY, call);
+            // connect / first-byte được mark bởi HttpClient interceptor qua exchange property
+            if (trace != null) {
+                ex.setProperty(SourceTrace.EXCHANGE_PROPERTY, trace);
+            }
+            processor.process(ex);
+        };
 
-        String finalUrl = Util.resolveTemplate(cfg.getUrl(), pathVariables);
+        CompletableFuture<Exchange> exchange = call.bind(CompletableFuture.supplyAsync(() -> {
+            if (trace == null) {
+                return complete(producerTemplate.send(endpoint, prepare));
+            }
+            trace.mark("start");
+            try {
+                return complete(producerTemplate.send(endpoint, prepare));
+            } finally {
+                trace.mark("body");
+            }
+        }, apiExecutor));
 
-        Exchange response = template.request("direct:callApiSoap", ex -> {
-            ex.getIn().setHeader("url", finalUrl);
-            ex.getIn().setBody(SoapRequestBodyXml.map.get(cfg.getSoapAction()));
+        CompletableFuture<Object> result = exchange.thenApply(onResponse);
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled()) {
+                exchange.cancel(false);
+            }
         });
+        return result;
+    }
 
-        Integer status = response.getMessage()
-                .getHeader(Exchange.HTTP_RESPONSE_CODE, Integer.class);
-        String body = response.getMessage().getBody(String.class);
+    private static Exchange complete(Exchange response) {
+        if (response.getException() != null) {
+            throw new CompletionException(response.getException());
+        }
+        return response;
+    }
+
+    /**
+     * Serve from the source's response cache when configured, otherwise load directly
+     */
+    private CompletableFuture<Object> cached(
+            SourcePlan source,
+            String cacheKey,
+            Supplier<CompletableFuture<Object>> loader
+    ) {
+        SourceResponseCache cache = source.getCache();
+        if (cache == null) {
+            return loader.get();
+        }
+        // Cache giữ giá trị đã extract → plan thu hẹp bởi ?fields= có key riêng
+        if (source.getFieldSelection() != null) {
+            cacheKey = cacheKey + "\nfields=" + source.getFieldSelection();
+        }
+        return cache.get(cacheKey, loader);
+    }
+
+    /**
+     * Fetch a target at most once per aggregation, sharing in-flight calls across requests.
+     * The fetch runs through the source's bulkhead, circuit breaker and retry policy, under the
+     * latest deadline of the requests sharing it; each request times out its own copy.
+     */
+    private CompletableFuture<Object> fetchOnce(
+            AggregationContext ctx,
+            SourcePlan source,
+            String target,
+            Function<Deadline, CompletableFuture<Object>> fetch
+    ) {
+        SourceGuard guard = source.getGuard();
+        SourceTrace trace = ctx.trace(source);
+        return ctx.getFetches().execute(target, () ->
+                inFlightFetches.execute(target, ctx.getDeadline(), deadline -> guard.execute(() -> {
+                    // Mỗi attempt (retry / hedge) là 1 lần gọi supplier
+                    mark(trace, "attempt");
+                    return fetch.apply(deadline);
+                }, deadline)));
+    }
 
-        log.info("DONE API [{}] on thread: {}", key, thread);
+    /**
+     * Structured result (Map / List tree) dùng trực tiếp, String thì parse 1 lần
+     */
+    private static Object toDocument(Object body) {
+        if (body instanceof String str) {
+            return SourceExtractor.parse(str);
+        }
+        return body;
+    }
 
-        Util.validateHttpResponse(status, body, finalUrl);
+    private static void mark(SourceTrace trace, String event) {
+        if (trace != null) {
+            trace.mark(event);
+        }
+    }
 
-        Object value = Util.extractByJsonPath(body, cfg);
+    private static <T> T mark(SourceTrace trace, String event, T value) {
+        mark(trace, event);
+        return value;
+    }
 
-        return new ApiCallResult(key, finalUrl, value, null);
+    private static Throwable unwrap(Throwable e) {
+        while (e instanceof CompletionException && e.getCause() != null) {
+            e = e.getCause();
+        }
+        return e;
     }
 }
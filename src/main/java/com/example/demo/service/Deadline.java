@@ -0,0 +1,87 @@
+package com.example.demo.service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency budget of one aggregation.
+ * Pending source calls time out when it expires, and retries stop once the
+ * remaining budget cannot cover the next backoff.
+ */
+public class Deadline {
+
+    private final long timeoutMillis;
+    // Theo System.nanoTime (không nhảy theo đồng hồ hệ thống), chỉ deadline shared() được kéo dài
+    private volatile long expiresAt;
+    private volatile boolean unbounded;
+
+    private Deadline(long timeoutMillis, long expiresAt, boolean unbounded) {
+        this.timeoutMillis = timeoutMillis;
+        this.expiresAt = expiresAt;
+        this.unbounded = unbounded;
+    }
+
+    private Deadline(long timeoutMillis) {
+        this(timeoutMillis, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis), false);
+    }
+
+    public static Deadline after(long timeoutMillis) {
+        return new Deadline(timeoutMillis);
+    }
+
+    /**
+     * Effective budget: the smaller of group and request budget, null when neither is set
+     */
+    public static Deadline of(Long groupTimeoutMs, Long requestTimeoutMs) {
+        if (groupTimeoutMs == null && requestTimeoutMs == null) {
+            return null;
+        }
+        if (groupTimeoutMs == null) {
+            return after(requestTimeoutMs);
+        }
+        if (requestTimeoutMs == null) {
+            return after(groupTimeoutMs);
+        }
+        return after(Math.min(groupTimeoutMs, requestTimeoutMs));
+    }
+
+    /**
+     * Extendable copy, for a call shared by several aggregations (SingleFlight)
+     */
+    public Deadline shared() {
+        return new Deadline(timeoutMillis, expiresAt, unbounded);
+    }
+
+    /**
+     * Extend a shared() deadline to cover another caller's budget, null = no limit
+     */
+    public synchronized void extendTo(Deadline other) {
+        if (other == null || other.unbounded) {
+            unbounded = true;
+        } else if (other.expiresAt - expiresAt > 0) {
+            // So sánh hiệu số: nanoTime có thể tràn số
+            expiresAt = other.expiresAt;
+        }
+    }
+
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    public long remainingMillis() {
+        if (unbounded) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(expiresAt - System.nanoTime()));
+    }
+
+    public boolean isExpired() {
+        return remainingMillis() == 0;
+    }
+
+    /**
+     * Whether an attempt starting after delayMillis can still finish within the budget
+     */
+    public boolean allows(long delayMillis) {
+        return remainingMillis() > delayMillis;
+    }
+}
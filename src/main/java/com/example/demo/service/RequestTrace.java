@@ -0,0 +1,46 @@
+package com.example.demo.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Opt-in latency breakdown of one aggregation, returned as a Server-Timing header
+ * and / or a _trace section of the response
+ */
+public class RequestTrace {
+
+    private final long startNanos = System.nanoTime();
+    private final Map<String, SourceTrace> sources = new ConcurrentHashMap<>();
+
+    public SourceTrace source(String key) {
+        return sources.computeIfAbsent(key, k -> new SourceTrace(startNanos));
+    }
+
+    /**
+     * total;dur=.., &lt;source&gt;;dur=.. (enqueue → done of each source)
+     */
+    public String serverTiming() {
+        StringJoiner timing = new StringJoiner(", ");
+        timing.add("total;dur=" + elapsedMillis());
+        sources.forEach((key, trace) -> timing.add(key + ";dur=" + trace.durationMillis()));
+        return timing.toString();
+    }
+
+    public Map<String, Object> describe() {
+        Map<String, Object> trace = new LinkedHashMap<>();
+        trace.put("totalMs", elapsedMillis());
+
+        Map<String, Object> timelines = new LinkedHashMap<>();
+        sources.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(e -> timelines.put(e.getKey(), e.getValue().describe()));
+        trace.put("sources", timelines);
+        return trace;
+    }
+
+    private double elapsedMillis() {
+        return Math.round((System.nanoTime() - startNanos) / 10_000.0) / 100.0;
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.demo.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Collapses concurrent calls with the same key into one execution.
+ * Later callers get a copy of the in-flight future, so cancelling one caller's
+ * future never cancels the shared call. With memoize = true the result is kept for
+ * the lifetime of this instance (one aggregation), otherwise the key is released
+ * as soon as the call completes.
+ */
+public class SingleFlight {
+
+    private final ConcurrentMap<String, Flight> calls = new ConcurrentHashMap<>();
+    private final boolean memoize;
+
+    public SingleFlight(boolean memoize) {
+        this.memoize = memoize;
+    }
+
+    public CompletableFuture<Object> execute(String key, Supplier<CompletableFuture<Object>> call) {
+        return execute(key, null, deadline -> call.get());
+    }
+
+    /**
+     * The shared call runs under its own deadline: the latest deadline of the callers that
+     * joined it (null as soon as one caller has none), so it is never cut short by the budget
+     * of whichever caller started it. Each caller applies its own deadline to its copy.
+     *
+     * @param deadline budget of this caller, null = not limited
+     */
+    public CompletableFuture<Object> execute(
+            String key,
+            Deadline deadline,
+            Function<Deadline, CompletableFuture<Object>> call
+    ) {
+        Flight mine = new Flight(new CompletableFuture<>(), deadline != null ? deadline.shared() : null);
+        Flight existing = calls.putIfAbsent(key, mine);
+
+        if (existing != null) {
+            if (existing.deadline() != null) {
+                existing.deadline().extendTo(deadline);
+            }
+            return existing.result().copy();
+        }
+
+        CompletableFuture<Object> result;
+        try {
+            result = call.apply(mine.deadline());
+        } catch (RuntimeException e) {
+            result = CompletableFuture.failedFuture(e);
+        }
+
+        result.whenComplete((value, error) -> {
+            if (!memoize) {
+                calls.remove(key, mine);
+            }
+            if (error != null) {
+                mine.result().completeExceptionally(error);
+            } else {
+                mine.result().complete(value);
+            }
+        });
+
+        return mine.result().copy();
+    }
+
+    public int inFlight() {
+        return calls.size();
+    }
+
+    private record Flight(CompletableFuture<Object> result, Deadline deadline) {
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.demo.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Timeline of one source call in a traced request: enqueue, attempt, start (executor
+ * picked the call up), connect, first-byte, body, parse, extract, done.
+ * A mark is one System.nanoTime() and a list append.
+ */
+public class SourceTrace {
+
+    // Exchange property của call route; HttpClient interceptor đọc qua Exchange trong HttpContext
+    public static final String EXCHANGE_PROPERTY = "sourceTrace";
+
+    private final long originNanos;
+    private final List<String> events = new ArrayList<>(12);
+    private final List<Long> times = new ArrayList<>(12);
+
+    SourceTrace(long originNanos) {
+        this.originNanos = originNanos;
+    }
+
+    public synchronized void mark(String event) {
+        events.add(event);
+        times.add(System.nanoTime());
+    }
+
+    // ms từ enqueue đến event cuối
+    synchronized double durationMillis() {
+        return times.isEmpty() ? 0 : millis(times.get(times.size() - 1) - times.get(0));
+    }
+
+    synchronized List<Map<String, Object>> describe() {
+        List<Map<String, Object>> timeline = new ArrayList<>(events.size());
+        for (int i = 0; i < events.size(); i++) {
+            Map<String, Object> event = new LinkedHashMap<>();
+            event.put("event", events.get(i));
+            // ms tính từ lúc request bắt đầu
+            event.put("atMs", millis(times.get(i) - originNanos));
+            timeline.add(event);
+        }
+        return timeline;
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 10_000.0) / 100.0;
+    }
+}
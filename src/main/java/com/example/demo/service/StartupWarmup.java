@@ -0,0 +1,205 @@
+package com.example.demo.service;
+
+import com.example.demo.config.ApiConfigRegistry;
+import com.example.demo.config.ApiWarmupProperties;
+import com.example.demo.config.DataSourceFactory;
+import com.example.demo.config.HttpConnectionWarmer;
+import com.example.demo.dto.StreamedRows;
+import com.example.demo.plan.ExecutionPlanRegistry;
+import com.example.demo.plan.GroupPlan;
+import com.example.demo.plan.SourcePlan;
+import com.example.demo.plan.SourceType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Warm-up before the instance reports ready: ApplicationRunners run before Spring Boot
+ * publishes ReadinessState.ACCEPTING_TRAFFIC, so /actuator/health/readiness stays
+ * OUT_OF_SERVICE until every datasource pool is created and pre-filled, connections to
+ * every REST / SOAP origin are open and the configured synthetic aggregations have run.
+ * Failures are logged and never block startup; the request path falls back to lazy creation.
+ */
+@Component
+@Slf4j
+public class StartupWarmup implements ApplicationRunner {
+
+    @Autowired
+    private ApiWarmupProperties properties;
+
+    @Autowired
+    private ExecutionPlanRegistry executionPlanRegistry;
+
+    @Autowired
+    private DataSourceFactory dataSourceFactory;
+
+    @Autowired
+    private HttpConnectionWarmer httpConnectionWarmer;
+
+    @Autowired
+    private ApiAggregationService apiAggregationService;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        long start = System.nanoTime();
+        long deadline = start + properties.getTimeout().toNanos();
+
+        // url|username → config của mọi source dùng pool đó
+        Map<String, List<ApiConfigRegistry.DbConfig>> pools = new LinkedHashMap<>();
+        Set<String> origins = new LinkedHashSet<>();
+        for (GroupPlan group : executionPlanRegistry.getCurrent().getGroups().values()) {
+            for (SourcePlan source : group.getSources()) {
+                collect(source, pools, origins);
+            }
+        }
+
+        // Pool và host độc lập nhau → mở song song
+        // Không dùng try-with-resources: close() chờ mọi task, 1 call bị treo sẽ chặn readiness
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            pools.values().forEach(configs -> tasks.add(executor.submit(() -> warmPool(configs))));
+            origins.forEach(origin -> tasks.add(executor.submit(() -> warmHost(origin))));
+            awaitAll(tasks, deadline);
+
+            properties.getRequests().forEach(request -> runAggregations(executor, request, deadline));
+        } finally {
+            // Hết timeout: interrupt task còn chạy và tiếp tục startup, không chờ
+            executor.shutdownNow();
+        }
+
+        log.info("Warm-up finished in {} ms: {} datasource pools, {} hosts, {} synthetic request sets",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+                pools.size(), origins.size(), properties.getRequests().size());
+    }
+
+    private void collect(SourcePlan source, Map<String, List<ApiConfigRegistry.DbConfig>> pools, Set<String> origins) {
+        ApiConfigRegistry.Source cfg = source.getConfig();
+        if (source.getType() == SourceType.DB) {
+            ApiConfigRegistry.DbConfig db = cfg.getConfig();
+            pools.computeIfAbsent(db.getUrl() + "|" + db.getUsername(), key -> new ArrayList<>()).add(db);
+            return;
+        }
+        addOrigin(cfg.getUrl(), origins);
+        if (cfg.getBatch() != null) {
+            addOrigin(cfg.getBatch().getUrl(), origins);
+        }
+    }
+
+    // scheme://host[:port] của URL, bỏ qua host có placeholder
+    private static void addOrigin(String url, Set<String> origins) {
+        if (url == null) {
+            return;
+        }
+        int scheme = url.indexOf("://");
+        if (scheme < 0) {
+            return;
+        }
+        int path = url.indexOf('/', scheme + 3);
+        String origin = path < 0 ? url : url.substring(0, path);
+        if (!origin.contains("{") && !origin.contains("?")) {
+            origins.add(origin);
+        }
+    }
+
+    private void warmPool(List<ApiConfigRegistry.DbConfig> configs) {
+        ApiConfigRegistry.DbConfig db = configs.get(0);
+        try {
+            // Pool dùng chung đã có size lớn nhất từ lúc compile plan (DataSourceFactory.register)
+            int opened = dataSourceFactory.warmUp(db);
+            log.info("Warm-up: datasource {} ready with {} connections", db.getUrl(), opened);
+        } catch (Exception e) {
+            log.warn("Warm-up: datasource {} failed: {}", db.getUrl(), e.getMessage());
+        }
+    }
+
+    private void warmHost(String origin) {
+        try {
+            int opened = httpConnectionWarmer.warmUp(origin, properties.getHttpConnectionsPerHost());
+            log.info("Warm-up: {} connections open to {}", opened, origin);
+        } catch (Exception e) {
+            log.warn("Warm-up: connection to {} failed: {}", origin, e.getMessage());
+        }
+    }
+
+    /**
+     * Run the same aggregation iterations times on concurrency lanes so the request path
+     * (templates, extraction, assembly) is JIT-compiled before real traffic arrives
+     */
+    private void runAggregations(ExecutorService executor, ApiWarmupProperties.Request request, long deadline) {
+        GroupPlan group;
+        try {
+            group = executionPlanRegistry.getGroup(request.getGroup());
+        } catch (IllegalArgumentException e) {
+            log.warn("Warm-up: {}", e.getMessage());
+            return;
+        }
+
+        AtomicInteger remaining = new AtomicInteger(request.getIterations());
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        List<Future<?>> lanes = new ArrayList<>();
+        for (int i = 0; i < Math.max(1, request.getConcurrency()); i++) {
+            lanes.add(executor.submit(() -> {
+                while (remaining.getAndDecrement() > 0 && System.nanoTime() < deadline) {
+                    try {
+                        Map<String, Object> result = apiAggregationService.aggregateApisAsync(group, request.getVariables(), null)
+                                .get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                        // Kết quả không được ghi ra → trả cursor của streamed source
+                        StreamedRows.closeAll(result.values());
+                        completed.incrementAndGet();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    } catch (TimeoutException e) {
+                        // Hết thời gian warm-up, lần chạy này không tính là xong
+                        return;
+                    } catch (Exception e) {
+                        // Source lỗi vẫn chạy qua extraction / assembly của các source còn lại
+                        completed.incrementAndGet();
+                        failed.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        awaitAll(lanes, deadline);
+        // Deadline hết hoặc bị interrupt → số lần chạy xong có thể ít hơn iterations
+        log.info("Warm-up: {}/{} aggregations of group {} ({} failed)",
+                completed.get(), request.getIterations(), request.getGroup(), failed.get());
+    }
+
+    private static void awaitAll(List<Future<?>> tasks, long deadline) {
+        for (Future<?> task : tasks) {
+            try {
+                task.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                log.warn("Warm-up timed out, continuing startup");
+                tasks.forEach(t -> t.cancel(true));
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.warn("Warm-up task failed: {}", e.getMessage());
+            }
+        }
+    }
+}
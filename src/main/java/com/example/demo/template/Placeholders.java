@@ -0,0 +1,32 @@
+package com.example.demo.template;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * {var} placeholder syntax shared by URL, SOAP and SQL templates.
+ * A name is a path variable ({id}) or a reference to another source's
+ * extracted value ({user-full-data.company.name}).
+ */
+public final class Placeholders {
+
+    public static final Pattern NAME = Pattern.compile("[A-Za-z_][A-Za-z0-9_\\-]*(?:\\.[A-Za-z0-9_\\-]+)*");
+
+    public static final Pattern PATTERN = Pattern.compile("\\{(" + NAME.pattern() + ")}");
+
+    private Placeholders() {
+    }
+
+    public static Set<String> namesIn(String text) {
+        Set<String> names = new LinkedHashSet<>();
+        if (text != null) {
+            Matcher placeholder = PATTERN.matcher(text);
+            while (placeholder.find()) {
+                names.add(placeholder.group(1));
+            }
+        }
+        return names;
+    }
+}
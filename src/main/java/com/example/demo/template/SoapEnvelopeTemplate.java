@@ -0,0 +1,75 @@
+package com.example.demo.template;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+
+/**
+ * SOAP envelope compiled once: the text is split into literal segments and {var}
+ * placeholders, rendering only concatenates the segments with XML-escaped values.
+ */
+public class SoapEnvelopeTemplate {
+
+    // literals.size() == variables.size() + 1
+    private final List<String> literals;
+
+    @Getter
+    private final List<String> variables;
+
+    private final int literalLength;
+
+    private SoapEnvelopeTemplate(List<String> literals, List<String> variables) {
+        this.literals = literals;
+        this.variables = variables;
+        this.literalLength = literals.stream().mapToInt(String::length).sum();
+    }
+
+    public static SoapEnvelopeTemplate compile(String envelope) {
+        List<String> literals = new ArrayList<>();
+        List<String> variables = new ArrayList<>();
+
+        Matcher placeholder = Placeholders.PATTERN.matcher(envelope);
+        int last = 0;
+        while (placeholder.find()) {
+            literals.add(envelope.substring(last, placeholder.start()));
+            variables.add(placeholder.group(1));
+            last = placeholder.end();
+        }
+        literals.add(envelope.substring(last));
+
+        return new SoapEnvelopeTemplate(
+                Collections.unmodifiableList(literals),
+                Collections.unmodifiableList(variables));
+    }
+
+    public String render(Map<String, String> values) {
+        StringBuilder body = new StringBuilder(literalLength + 16 * variables.size());
+        for (int i = 0; i < variables.size(); i++) {
+            String value = values.get(variables.get(i));
+            if (value == null) {
+                throw new IllegalArgumentException("Missing variable " + variables.get(i) + " for SOAP envelope");
+            }
+            body.append(literals.get(i));
+            escape(value, body);
+        }
+        return body.append(literals.get(literals.size() - 1)).toString();
+    }
+
+    private static void escape(String value, StringBuilder out) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '<' -> out.append("&lt;");
+                case '>' -> out.append("&gt;");
+                case '&' -> out.append("&amp;");
+                case '"' -> out.append("&quot;");
+                case '\'' -> out.append("&apos;");
+                default -> out.append(c);
+            }
+        }
+    }
+}
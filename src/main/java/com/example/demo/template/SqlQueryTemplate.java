@@ -0,0 +1,195 @@
+package com.example.demo.template;
+
+import com.example.demo.util.Util;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * SQL query compiled once: every {var} placeholder becomes a named parameter
+ * (camel-sql :?name syntax for message-body SQL) bound through a PreparedStatement
+ * instead of being pasted into the SQL text.
+ * '{var}' (placeholder as a whole string literal) is unquoted, a placeholder inside a
+ * larger literal is rejected at startup. Line and block comments are copied unchanged.
+ */
+@Getter
+public class SqlQueryTemplate {
+
+    private static final Pattern NAMED_PARAMETER = Pattern.compile(":\\?([A-Za-z_][A-Za-z0-9_]*)");
+
+    // Chỉ rewrite SELECT * của 1 bảng, query có JOIN / subquery / dấu phẩy giữ nguyên column list
+    private static final Pattern SELECT_ALL = Pattern.compile(
+            "^\\s*SELECT\\s+\\*\\s+FROM\\s+[A-Za-z_][A-Za-z0-9_.\"]*(?![\\s\\S]*(\\bJOIN\\b|\\bSELECT\\b|,))",
+            Pattern.CASE_INSENSITIVE);
+
+    private final String sql;
+
+    // Cùng query dạng JDBC: ? placeholder + tên parameter theo thứ tự (dùng cho streaming JDBC)
+    private final String jdbcSql;
+    private final List<String> jdbcParameterNames;
+
+    // parameter name → value template, vd. id → {id}
+    private final Map<String, String> parameters;
+
+    private SqlQueryTemplate(String sql, Map<String, String> parameters) {
+        this.sql = sql;
+        this.parameters = parameters;
+
+        List<String> names = new ArrayList<>();
+        Matcher named = NAMED_PARAMETER.matcher(sql);
+        StringBuilder jdbc = new StringBuilder();
+        while (named.find()) {
+            names.add(named.group(1));
+            named.appendReplacement(jdbc, "?");
+        }
+        named.appendTail(jdbc);
+
+        this.jdbcSql = jdbc.toString();
+        this.jdbcParameterNames = List.copyOf(names);
+    }
+
+    public static SqlQueryTemplate compile(String query, Map<String, String> declaredParameters) {
+        Map<String, String> parameters = new LinkedHashMap<>();
+        if (declaredParameters != null) {
+            parameters.putAll(declaredParameters);
+        }
+
+        StringBuilder sql = new StringBuilder(query.length());
+        boolean inLiteral = false;
+        int i = 0;
+
+        // parameter name → placeholder, 2 placeholder khác nhau không được ra cùng 1 tên
+        Map<String, String> placeholders = new LinkedHashMap<>();
+
+        while (i < query.length()) {
+            char c = query.charAt(i);
+
+            // Comment: giữ nguyên, placeholder / dấu ' trong comment không có ý nghĩa
+            int commentEnd = inLiteral ? -1 : commentEnd(query, i);
+            if (commentEnd > 0) {
+                sql.append(query, i, commentEnd);
+                i = commentEnd;
+                continue;
+            }
+
+            if (c == '\'') {
+                inLiteral = !inLiteral;
+                sql.append(c);
+                i++;
+                continue;
+            }
+
+            int end = c == '{' ? query.indexOf('}', i) : -1;
+            String name = end > 0 ? query.substring(i + 1, end) : null;
+
+            if (name == null || !Placeholders.NAME.matcher(name).matches()) {
+                sql.append(c);
+                i++;
+                continue;
+            }
+
+            if (inLiteral) {
+                boolean wholeLiteral = query.charAt(i - 1) == '\''
+                        && end + 1 < query.length() && query.charAt(end + 1) == '\'';
+                if (!wholeLiteral) {
+                    throw new IllegalArgumentException(
+                            "Placeholder {" + name + "} inside a SQL literal is not supported: " + query);
+                }
+                // '{id}' → :?id
+                sql.setLength(sql.length() - 1);
+                inLiteral = false;
+                end++;
+            }
+
+            // Reference {source.path} → parameter name chỉ gồm ký tự \w (cú pháp :?name của camel-sql)
+            String parameter = name.replaceAll("\\W", "_");
+            String other = placeholders.putIfAbsent(parameter, name);
+            if (other != null && !other.equals(name)) {
+                throw new IllegalArgumentException(
+                        "Placeholders {" + other + "} and {" + name + "} map to the same SQL parameter: " + query);
+            }
+            sql.append(":?").append(parameter);
+            parameters.putIfAbsent(parameter, "{" + name + "}");
+            i = end + 1;
+        }
+
+        return new SqlQueryTemplate(sql.toString(), Collections.unmodifiableMap(parameters));
+    }
+
+    /**
+     * @return the index after the comment starting at i, -1 when no comment starts there
+     */
+    private static int commentEnd(String query, int i) {
+        if (query.startsWith("--", i)) {
+            int end = query.indexOf('\n', i);
+            return end < 0 ? query.length() : end;
+        }
+        if (query.startsWith("/*", i)) {
+            int end = query.indexOf("*/", i + 2);
+            return end < 0 ? query.length() : end + 2;
+        }
+        return -1;
+    }
+
+    /**
+     * Push a column list down into SELECT *
+     *
+     * @return the query selecting only these columns, or this query when it is not a plain single-table SELECT *
+     */
+    public SqlQueryTemplate selectColumns(List<String> columns) {
+        Matcher select = SELECT_ALL.matcher(sql);
+        if (columns.isEmpty() || !select.find()) {
+            return this;
+        }
+        int star = sql.indexOf('*');
+        return new SqlQueryTemplate(
+                sql.substring(0, star) + String.join(", ", columns) + sql.substring(star + 1),
+                parameters);
+    }
+
+    /**
+     * Expand a list parameter into size numbered parameters: :?ids → :?ids_0, :?ids_1, ...
+     * (used inside IN (...), one PreparedStatement parameter per value)
+     */
+    public String expand(String parameter, int size) {
+        List<String> expanded = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            expanded.add(":?" + parameter + "_" + i);
+        }
+        String list = String.join(", ", expanded);
+
+        // Thay theo tên parameter đã parse: :?id không được đụng tới :?ids / :?idx
+        Matcher named = NAMED_PARAMETER.matcher(sql);
+        StringBuilder result = new StringBuilder();
+        while (named.find()) {
+            named.appendReplacement(result, Matcher.quoteReplacement(
+                    named.group(1).equals(parameter) ? list : named.group()));
+        }
+        named.appendTail(result);
+        return result.toString();
+    }
+
+    /**
+     * Resolve every parameter value from the request variables
+     */
+    public Map<String, Object> bind(Map<String, String> variables) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        parameters.forEach((name, template) -> {
+            Matcher placeholder = Placeholders.PATTERN.matcher(template);
+            while (placeholder.find()) {
+                if (!variables.containsKey(placeholder.group(1))) {
+                    throw new IllegalArgumentException(
+                            "Missing variable " + placeholder.group(1) + " for SQL parameter " + name);
+                }
+            }
+            values.put(name, Util.resolveTemplate(template, variables));
+        });
+        return values;
+    }
+}
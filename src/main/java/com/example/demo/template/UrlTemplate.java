@@ -0,0 +1,52 @@
+package com.example.demo.template;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+
+/**
+ * URL with {var} placeholders split once into literal segments.
+ * Same result as Util.resolveTemplate: unknown placeholders are left as they are.
+ */
+public class UrlTemplate {
+
+    // literals.size() == variables.size() + 1
+    private final List<String> literals;
+    private final List<String> variables;
+
+    private UrlTemplate(List<String> literals, List<String> variables) {
+        this.literals = literals;
+        this.variables = variables;
+    }
+
+    public static UrlTemplate compile(String url) {
+        List<String> literals = new ArrayList<>();
+        List<String> variables = new ArrayList<>();
+
+        Matcher placeholder = Placeholders.PATTERN.matcher(url);
+        int last = 0;
+        while (placeholder.find()) {
+            literals.add(url.substring(last, placeholder.start()));
+            variables.add(placeholder.group(1));
+            last = placeholder.end();
+        }
+        literals.add(url.substring(last));
+
+        return new UrlTemplate(List.copyOf(literals), List.copyOf(variables));
+    }
+
+    public String resolve(Map<String, String> values) {
+        if (variables.isEmpty()) {
+            return literals.get(0);
+        }
+
+        StringBuilder url = new StringBuilder(64);
+        for (int i = 0; i < variables.size(); i++) {
+            String value = values.get(variables.get(i));
+            url.append(literals.get(i));
+            url.append(value != null ? value : "{" + variables.get(i) + "}");
+        }
+        return url.append(literals.get(literals.size() - 1)).toString();
+    }
+}
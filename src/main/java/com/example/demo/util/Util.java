@@ -1,10 +1,8 @@
 package com.example.demo.util;
 
 import com.example.demo.config.ApiConfigRegistry;
-import com.jayway.jsonpath.JsonPath;
+import com.example.demo.extractor.SourceExtractor;
 
-import java.util.LinkedHashMap;
-import java.util.List;
 import java.util.Map;
 
 public class Util {
@@ -25,38 +23,21 @@ public class Util {
         }
     }
 
-    // TODO: What if the result is a list, how can I DTO it
-    public static Object extractByJsonPath(String body, ApiConfigRegistry.Source cfg) {
-
-        Object root = JsonPath.read(body, cfg.getPath());
-
-        // No DTO mapping → return raw result
-        if (cfg.getFields() == null || cfg.getFields().isEmpty()) {
-            return root;
+    public static void validateHttpResponse(Integer status, Object body, String target) {
+        if (body instanceof String str) {
+            validateHttpResponse(status, str, target);
+            return;
         }
-
-        // Case 1: root is a LIST → map each element
-        if (root instanceof List<?> list) {
-            return list.stream()
-                    .map(item -> extractFields(item, cfg))
-                    .toList();
+        if (status == null || status >= 400) {
+            throw new RuntimeException("HTTP " + status + " when calling " + target);
+        }
+        if (body == null) {
+            throw new RuntimeException("Empty response body from " + target);
         }
-
-        // Case 2: root is an OBJECT → map once
-        return extractFields(root, cfg);
     }
 
-    private static Map<String, Object> extractFields(
-            Object source,
-            ApiConfigRegistry.Source cfg
-    ) {
-        Map<String, Object> extracted = new LinkedHashMap<>();
-
-        cfg.getFields().forEach((field, path) -> {
-            Object value = JsonPath.read(source, path);
-            extracted.put(field, value);
-        });
-
-        return extracted;
+    // One-off compile, aggregation dùng extractor precompile trong SourcePlan
+    public static Object extractByJsonPath(String body, ApiConfigRegistry.Source cfg) {
+        return SourceExtractor.compile(cfg).extract(body);
     }
 }
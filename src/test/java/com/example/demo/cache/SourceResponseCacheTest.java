@@ -0,0 +1,157 @@
+package com.example.demo.cache;
+
+import com.example.demo.config.ApiConfigRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SourceResponseCacheTest {
+
+    @Test
+    void freshEntryIsServedWithoutLoading() {
+        SourceResponseCache cache = cache(config(Duration.ofMinutes(1), Duration.ZERO, 10, 0, "lru"));
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals("v1", get(cache, "k", () -> "v" + loads.incrementAndGet()));
+        assertEquals("v1", get(cache, "k", () -> "v" + loads.incrementAndGet()));
+
+        assertEquals(1, loads.get());
+        assertEquals(1L, cache.stats().get("hits"));
+        assertEquals(1L, cache.stats().get("misses"));
+    }
+
+    @Test
+    void lruEvictsTheLeastRecentlyUsedEntry() {
+        SourceResponseCache cache = cache(config(Duration.ofMinutes(1), Duration.ZERO, 2, 0, "lru"));
+
+        get(cache, "a", () -> "a");
+        get(cache, "b", () -> "b");
+        // a được dùng lại → b là entry cũ nhất
+        get(cache, "a", () -> "reloaded");
+        get(cache, "c", () -> "c");
+
+        assertEquals("a", get(cache, "a", () -> "reloaded"));
+        assertEquals("reloaded", get(cache, "b", () -> "reloaded"));
+        assertEquals(2L, cache.stats().get("evictions"));
+    }
+
+    @Test
+    void lfuEvictsTheLeastFrequentlyUsedEntry() {
+        SourceResponseCache cache = cache(config(Duration.ofMinutes(1), Duration.ZERO, 2, 0, "lfu"));
+
+        get(cache, "a", () -> "a");
+        get(cache, "a", () -> "reloaded");
+        get(cache, "a", () -> "reloaded");
+        get(cache, "b", () -> "b");
+        get(cache, "b", () -> "reloaded");
+        // b dùng gần đây hơn nhưng ít lần hơn a
+        get(cache, "c", () -> "c");
+
+        assertEquals("a", get(cache, "a", () -> "reloaded"));
+        assertEquals("c", get(cache, "c", () -> "reloaded"));
+        assertEquals(1L, cache.stats().get("evictions"));
+    }
+
+    @Test
+    void weightIsAccountedAndBounded() {
+        long weight = SourceResponseCache.ValueWeigher.weigh("abcd");
+        assertEquals(48L, weight);
+        assertEquals(48L + 32 + SourceResponseCache.ValueWeigher.weigh("k") + weight,
+                SourceResponseCache.ValueWeigher.weigh(Map.of("k", "abcd")));
+        assertEquals(40L + 8 + weight, SourceResponseCache.ValueWeigher.weigh(List.of("abcd")));
+
+        SourceResponseCache cache = cache(config(Duration.ofMinutes(1), Duration.ZERO, 10, 2 * weight, "lru"));
+        get(cache, "a", () -> "abcd");
+        get(cache, "b", () -> "efgh");
+        assertEquals(2 * weight, cache.stats().get("weight"));
+
+        get(cache, "c", () -> "ijkl");
+        assertEquals(2, cache.stats().get("size"));
+        assertEquals(2 * weight, cache.stats().get("weight"));
+
+        // Evict b → weight = c + d
+        get(cache, "d", () -> "x");
+        assertEquals(weight + SourceResponseCache.ValueWeigher.weigh("x"), cache.stats().get("weight"));
+    }
+
+    @Test
+    void entryHeavierThanMaxWeightIsStillCached() {
+        SourceResponseCache cache = cache(config(Duration.ofMinutes(1), Duration.ZERO, 10, 10, "lru"));
+
+        get(cache, "a", () -> "abcd");
+
+        assertEquals(1, cache.stats().get("size"));
+    }
+
+    @Test
+    void staleEntryIsServedWhileOneRefreshRuns() throws Exception {
+        SourceResponseCache cache = cache(config(Duration.ofMillis(20), Duration.ofMinutes(1), 10, 0, "lru"));
+        get(cache, "k", () -> "v1");
+        Thread.sleep(40);
+
+        CompletableFuture<Object> refresh = new CompletableFuture<>();
+        AtomicInteger refreshes = new AtomicInteger();
+        assertEquals("v1", cache.get("k", () -> {
+            refreshes.incrementAndGet();
+            return refresh;
+        }).join());
+        // Refresh đang chạy → không gửi thêm
+        assertEquals("v1", cache.get("k", () -> {
+            refreshes.incrementAndGet();
+            return refresh;
+        }).join());
+        assertEquals(1, refreshes.get());
+        assertEquals(2L, cache.stats().get("staleHits"));
+
+        refresh.complete("v2");
+        assertEquals("v2", get(cache, "k", () -> "reloaded"));
+    }
+
+    @Test
+    void failedRefreshKeepsTheStaleEntry() throws Exception {
+        SourceResponseCache cache = cache(config(Duration.ofMillis(20), Duration.ofMinutes(1), 10, 0, "lru"));
+        get(cache, "k", () -> "v1");
+        Thread.sleep(40);
+
+        assertEquals("v1", cache.get("k", () -> CompletableFuture.failedFuture(new IllegalStateException("down"))).join());
+
+        assertEquals(1L, cache.stats().get("loadFailures"));
+        assertEquals("v1", cache.get("k", () -> CompletableFuture.completedFuture("v2")).join());
+    }
+
+    @Test
+    void expiredEntryIsLoadedAgain() throws Exception {
+        SourceResponseCache cache = cache(config(Duration.ofMillis(20), Duration.ZERO, 10, 0, "lru"));
+        get(cache, "k", () -> "v1");
+        Thread.sleep(40);
+
+        assertEquals("v2", get(cache, "k", () -> "v2"));
+        assertEquals(2L, cache.stats().get("misses"));
+    }
+
+    private static Object get(SourceResponseCache cache, String key, Supplier<Object> value) {
+        return cache.get(key, () -> CompletableFuture.completedFuture(value.get())).join();
+    }
+
+    private static SourceResponseCache cache(ApiConfigRegistry.CacheConfig cfg) {
+        return new SourceResponseCache("demo.user", cfg);
+    }
+
+    private static ApiConfigRegistry.CacheConfig config(
+            Duration ttl, Duration stale, int maxEntries, long maxWeight, String eviction) {
+        ApiConfigRegistry.CacheConfig cfg = new ApiConfigRegistry.CacheConfig();
+        cfg.setTtl(ttl);
+        cfg.setStaleWhileRevalidate(stale);
+        cfg.setMaxEntries(maxEntries);
+        cfg.setMaxWeight(maxWeight);
+        cfg.setEviction(eviction);
+        return cfg;
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.demo.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConcurrencyLimitedExecutorTest {
+
+    @Test
+    void permitIsHeldForTheWholeTask() throws Exception {
+        try (ExecutorService virtual = Executors.newVirtualThreadPerTaskExecutor()) {
+            ConcurrencyLimitedExecutor executor = new ConcurrencyLimitedExecutor(virtual, 3);
+            CountDownLatch release = new CountDownLatch(1);
+            CountDownLatch done = new CountDownLatch(10);
+            AtomicInteger running = new AtomicInteger();
+            AtomicInteger maxRunning = new AtomicInteger();
+
+            for (int i = 0; i < 10; i++) {
+                executor.execute(() -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    try {
+                        // Giống call đồng bộ: chặn thread tới khi có response
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    running.decrementAndGet();
+                    done.countDown();
+                });
+            }
+
+            waitFor(() -> running.get() == 3 && executor.queuedTasks() == 7);
+            assertEquals(3, executor.activeTasks());
+
+            release.countDown();
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            assertEquals(3, maxRunning.get());
+            waitFor(() -> executor.availablePermits() == 3);
+        }
+    }
+
+    @Test
+    void failingTaskReleasesItsPermit() throws Exception {
+        try (ExecutorService virtual = Executors.newVirtualThreadPerTaskExecutor()) {
+            ConcurrencyLimitedExecutor executor = new ConcurrencyLimitedExecutor(virtual, 1);
+            CountDownLatch done = new CountDownLatch(1);
+
+            executor.execute(() -> {
+                throw new IllegalStateException("boom");
+            });
+            executor.execute(done::countDown);
+
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            waitFor(() -> executor.availablePermits() == 1);
+        }
+    }
+
+    @Test
+    void interruptedQueuedTaskStillRuns() throws Exception {
+        List<Thread> threads = new CopyOnWriteArrayList<>();
+        Executor delegate = task -> threads.add(Thread.ofVirtual().start(task));
+        ConcurrencyLimitedExecutor executor = new ConcurrencyLimitedExecutor(delegate, 1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        executor.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(
+                () -> Thread.currentThread().isInterrupted(), executor);
+
+        waitFor(() -> executor.queuedTasks() == 1);
+        threads.get(1).interrupt();
+        release.countDown();
+
+        // Task vẫn chạy và thấy interrupt flag
+        assertTrue(queued.get(5, TimeUnit.SECONDS));
+        waitFor(() -> executor.availablePermits() == 1);
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met within 5 s");
+            Thread.sleep(5);
+        }
+    }
+}
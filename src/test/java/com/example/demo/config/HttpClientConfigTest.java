@@ -0,0 +1,44 @@
+package com.example.demo.config;
+
+import com.example.demo.service.Deadline;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.util.Timeout;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HttpClientConfigTest {
+
+    @Test
+    void responseTimeoutIsCappedByTheRemainingDeadline() {
+        HttpClientContext context = HttpClientContext.create();
+        context.setRequestConfig(RequestConfig.custom().setResponseTimeout(Timeout.ofSeconds(30)).build());
+
+        HttpClientConfig.capResponseTimeout(context, Deadline.after(500));
+
+        long timeout = context.getRequestConfigOrDefault().getResponseTimeout().toMilliseconds();
+        assertTrue(timeout > 0 && timeout <= 500, "timeout " + timeout);
+    }
+
+    @Test
+    void shorterSourceTimeoutIsKept() {
+        HttpClientContext context = HttpClientContext.create();
+        context.setRequestConfig(RequestConfig.custom().setResponseTimeout(Timeout.ofMilliseconds(200)).build());
+
+        HttpClientConfig.capResponseTimeout(context, Deadline.after(10_000));
+
+        assertEquals(200L, context.getRequestConfigOrDefault().getResponseTimeout().toMilliseconds());
+    }
+
+    @Test
+    void noDeadlineKeepsTheSourceTimeout() {
+        HttpClientContext context = HttpClientContext.create();
+        context.setRequestConfig(RequestConfig.custom().setResponseTimeout(Timeout.ofSeconds(30)).build());
+
+        HttpClientConfig.capResponseTimeout(context, null);
+
+        assertEquals(30_000L, context.getRequestConfigOrDefault().getResponseTimeout().toMilliseconds());
+    }
+}
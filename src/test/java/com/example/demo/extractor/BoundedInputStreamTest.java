@@ -0,0 +1,54 @@
+package com.example.demo.extractor;
+
+import com.example.demo.exception.ResponseTooLargeException;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BoundedInputStreamTest {
+
+    @Test
+    void readsBodyUpToTheLimit() throws Exception {
+        byte[] bytes = "0123456789".getBytes();
+        BoundedInputStream in = new BoundedInputStream(new ByteArrayInputStream(bytes), 10, "GET /a");
+
+        assertArrayEquals(bytes, in.readAllBytes());
+        assertEquals(10L, in.getCount());
+    }
+
+    @Test
+    void failsOnceMoreThanMaxBytesAreRead() {
+        BoundedInputStream in = new BoundedInputStream(new ByteArrayInputStream(new byte[11]), 10, "GET /a");
+
+        ResponseTooLargeException e = assertThrows(ResponseTooLargeException.class, in::readAllBytes);
+        assertEquals(10L, e.getMaxBytes());
+    }
+
+    @Test
+    void countsSingleByteReads() throws Exception {
+        BoundedInputStream in = new BoundedInputStream(new ByteArrayInputStream(new byte[3]), 2, "GET /a");
+
+        in.read();
+        in.read();
+        assertThrows(ResponseTooLargeException.class, in::read);
+    }
+
+    @Test
+    void countsSkippedBytes() {
+        BoundedInputStream in = new BoundedInputStream(new ByteArrayInputStream(new byte[100]), 50, "GET /a");
+
+        assertThrows(ResponseTooLargeException.class, () -> in.skip(60));
+    }
+
+    @Test
+    void countsDrainedBytes() {
+        BoundedInputStream in = new BoundedInputStream(new ByteArrayInputStream(new byte[100]), 50, "GET /a");
+
+        assertThrows(ResponseTooLargeException.class, () -> in.transferTo(OutputStream.nullOutputStream()));
+    }
+}
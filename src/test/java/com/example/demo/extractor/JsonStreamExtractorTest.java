@@ -0,0 +1,112 @@
+package com.example.demo.extractor;
+
+import com.jayway.jsonpath.PathNotFoundException;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JsonStreamExtractorTest {
+
+    private static final String USER = """
+            {"id": 1, "posts": [{"id": 7}], "company": {"name": "Acme", "address": {"city": "Hanoi"}}, "tail": "x"}
+            """;
+
+    @Test
+    void compilesOnlySimpleDottedPaths() {
+        assertEquals(List.of("company", "name"), JsonStreamExtractor.compile("$.company.name").getSegments());
+        assertEquals(List.of(), JsonStreamExtractor.compile("$").getSegments());
+        assertNull(JsonStreamExtractor.compile("$.posts[0]"));
+        assertNull(JsonStreamExtractor.compile("$..name"));
+        assertNull(JsonStreamExtractor.compile("$.posts[?(@.id > 1)]"));
+        assertNull(JsonStreamExtractor.compile(null));
+    }
+
+    @Test
+    void extractsTheValueAtThePath() {
+        Object company = JsonStreamExtractor.compile("$.company").extract(stream(USER));
+
+        assertEquals(Map.of("name", "Acme", "address", Map.of("city", "Hanoi")), company);
+        assertEquals("Hanoi", JsonStreamExtractor.compile("$.company.address.city").extract(stream(USER)));
+    }
+
+    @Test
+    void rootPathReturnsTheWholeDocument() {
+        Object document = JsonStreamExtractor.compile("$").extract(stream("[1, 2]"));
+
+        assertEquals(List.of(1, 2), document);
+    }
+
+    @Test
+    void missingSegmentIsPathNotFound() {
+        JsonStreamExtractor extractor = JsonStreamExtractor.compile("$.company.phone");
+
+        assertThrows(PathNotFoundException.class, () -> extractor.extract(stream(USER)));
+    }
+
+    @Test
+    void nonObjectOnThePathIsPathNotFound() {
+        assertThrows(PathNotFoundException.class,
+                () -> JsonStreamExtractor.compile("$.id.value").extract(stream(USER)));
+        assertThrows(PathNotFoundException.class,
+                () -> JsonStreamExtractor.compile("$.company").extract(stream("[{\"company\": 1}]")));
+    }
+
+    @Test
+    void emptyBodyIsNull() {
+        assertNull(JsonStreamExtractor.compile("$.company").extract(stream("")));
+        assertNull(JsonStreamExtractor.compile("$.company").extract(stream("  \n")));
+        assertNull(JsonStreamExtractor.parse(stream("")));
+    }
+
+    @Test
+    void malformedBodyIsIllegalState() {
+        assertThrows(IllegalStateException.class,
+                () -> JsonStreamExtractor.compile("$.company").extract(stream("{\"company\": {")));
+        assertThrows(IllegalStateException.class, () -> JsonStreamExtractor.parse(stream("{\"a\" 1}")));
+    }
+
+    @Test
+    void leavesTheStreamOpenAfterTheSelectedValue() {
+        TrackingStream in = new TrackingStream(USER);
+
+        JsonStreamExtractor.compile("$.company").extract(in);
+
+        // Phần sau path do caller drain qua stream giới hạn
+        assertFalse(in.closed);
+    }
+
+    @Test
+    void parseLeavesTheStreamOpen() {
+        TrackingStream in = new TrackingStream("{\"a\": 1}");
+
+        assertEquals(Map.of("a", 1), JsonStreamExtractor.parse(in));
+        assertFalse(in.closed);
+    }
+
+    private static InputStream stream(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static class TrackingStream extends ByteArrayInputStream {
+
+        private boolean closed;
+
+        TrackingStream(String json) {
+            super(json.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.demo.plan;
+
+import com.example.demo.config.ApiConfigRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BatchPlanTest {
+
+    @Test
+    void padsToTheNextPowerOfTwoWithTheLastId() {
+        BatchPlan plan = rest(100);
+
+        assertEquals(List.of(), plan.pad(List.of()));
+        assertEquals(List.of("1"), plan.pad(List.of("1")));
+        assertEquals(List.of("1", "2"), plan.pad(List.of("1", "2")));
+        assertEquals(List.of("1", "2", "3", "3"), plan.pad(List.of("1", "2", "3")));
+        assertEquals(8, plan.pad(List.of("1", "2", "3", "4", "5")).size());
+    }
+
+    @Test
+    void paddingNeverExceedsMaxSize() {
+        BatchPlan plan = rest(6);
+
+        assertEquals(6, plan.pad(List.of("1", "2", "3", "4", "5")).size());
+        assertEquals(6, plan.pad(List.of("1", "2", "3", "4", "5", "6")).size());
+    }
+
+    @Test
+    void expandsTheListParameterPerChunkSize() {
+        BatchPlan plan = db("SELECT * FROM orders WHERE user_id IN ({ids})");
+
+        assertEquals("SELECT * FROM orders WHERE user_id IN (:?ids_0, :?ids_1)", plan.sql(2));
+        assertEquals("SELECT * FROM orders WHERE user_id IN (:?ids_0, :?ids_1, :?ids_2, :?ids_3)", plan.sql(4));
+    }
+
+    @Test
+    void splitsRestElementsById() {
+        BatchPlan plan = rest(100);
+        Map<String, Object> split = plan.split(Map.of("users", List.of(user(1, "a"), user(2, "b"))));
+
+        assertEquals("a", ((Map<?, ?>) plan.elementFor(split, "1")).get("name"));
+        assertEquals("b", ((Map<?, ?>) plan.elementFor(split, "2")).get("name"));
+        assertThrows(IllegalStateException.class, () -> plan.elementFor(split, "3"));
+    }
+
+    @Test
+    void elementsWithoutTheKeyAreSkipped() {
+        BatchPlan plan = rest(100);
+        Map<String, Object> noId = new LinkedHashMap<>();
+        noId.put("name", "anonymous");
+        List<Object> users = new ArrayList<>(List.of(user(1, "a"), noId, "not an object"));
+
+        Map<String, Object> split = plan.split(Map.of("users", users));
+
+        // Element lỗi không làm fail cả chunk
+        assertEquals(1, split.size());
+        assertEquals("a", ((Map<?, ?>) plan.elementFor(split, "1")).get("name"));
+    }
+
+    @Test
+    void groupsDbRowsById() {
+        BatchPlan plan = db("SELECT * FROM orders WHERE user_id IN ({ids})");
+        List<Map<String, Object>> rows = List.of(
+                Map.of("user_id", 1, "total", 10),
+                Map.of("user_id", 1, "total", 20),
+                Map.of("user_id", 2, "total", 30));
+
+        Map<String, Object> split = plan.split(rows);
+
+        assertEquals(2, ((List<?>) plan.elementFor(split, "1")).size());
+        assertEquals(1, ((List<?>) plan.elementFor(split, "2")).size());
+        // Id không có row → list rỗng như query đơn
+        assertEquals(List.of(), plan.elementFor(split, "3"));
+    }
+
+    private static Map<String, Object> user(int id, String name) {
+        Map<String, Object> user = new LinkedHashMap<>();
+        user.put("id", id);
+        user.put("name", name);
+        return user;
+    }
+
+    private static BatchPlan rest(int maxSize) {
+        ApiConfigRegistry.BatchConfig cfg = new ApiConfigRegistry.BatchConfig();
+        cfg.setUrl("https://example.com/users?ids={ids}");
+        cfg.setPath("$.users");
+        cfg.setMaxSize(maxSize);
+        return new BatchPlan(SourceType.REST, cfg);
+    }
+
+    private static BatchPlan db(String query) {
+        ApiConfigRegistry.BatchConfig cfg = new ApiConfigRegistry.BatchConfig();
+        cfg.setQuery(query);
+        cfg.setKey("$.user_id");
+        return new BatchPlan(SourceType.DB, cfg);
+    }
+}
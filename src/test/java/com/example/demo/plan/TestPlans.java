@@ -0,0 +1,16 @@
+package com.example.demo.plan;
+
+import java.util.List;
+
+/**
+ * Plans for tests outside the plan package (GroupPlan is only built by ExecutionPlanRegistry)
+ */
+public final class TestPlans {
+
+    private TestPlans() {
+    }
+
+    public static GroupPlan group(String name, int priority, int maxConcurrentRequests) {
+        return new GroupPlan(name, null, true, priority, maxConcurrentRequests, List.of(), List.of());
+    }
+}
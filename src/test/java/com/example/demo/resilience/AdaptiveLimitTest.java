@@ -0,0 +1,73 @@
+package com.example.demo.resilience;
+
+import com.example.demo.config.ApiAdmissionProperties;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveLimitTest {
+
+    private static final long BASELINE = Duration.ofMillis(100).toNanos();
+
+    @Test
+    void growsWhileLatencyStaysAtTheBaseline() {
+        AdaptiveLimit limit = new AdaptiveLimit(properties(true));
+
+        for (int i = 0; i < 50; i++) {
+            limit.onSample(BASELINE, limit.get());
+        }
+
+        assertTrue(limit.get() > 20, "limit " + limit.get());
+        assertTrue(limit.get() <= 200);
+    }
+
+    @Test
+    void shrinksWhenLatencyRises() {
+        AdaptiveLimit limit = new AdaptiveLimit(properties(true));
+        for (int i = 0; i < 50; i++) {
+            limit.onSample(BASELINE, limit.get());
+        }
+        int grown = limit.get();
+
+        for (int i = 0; i < 100; i++) {
+            limit.onSample(10 * BASELINE, limit.get());
+        }
+
+        assertTrue(limit.get() < grown / 2, grown + " → " + limit.get());
+        assertTrue(limit.get() >= 5);
+    }
+
+    @Test
+    void doesNotGrowUnderLowLoad() {
+        AdaptiveLimit limit = new AdaptiveLimit(properties(true));
+
+        for (int i = 0; i < 50; i++) {
+            limit.onSample(BASELINE, 1);
+        }
+
+        assertEquals(20, limit.get());
+    }
+
+    @Test
+    void fixedLimitIgnoresSamples() {
+        AdaptiveLimit limit = new AdaptiveLimit(properties(false));
+
+        for (int i = 0; i < 50; i++) {
+            limit.onSample(10 * BASELINE, limit.get());
+        }
+
+        assertEquals(20, limit.get());
+    }
+
+    private static ApiAdmissionProperties properties(boolean adaptive) {
+        ApiAdmissionProperties properties = new ApiAdmissionProperties();
+        properties.setAdaptive(adaptive);
+        properties.setInitialLimit(20);
+        properties.setMinLimit(5);
+        properties.setMaxLimit(200);
+        return properties;
+    }
+}
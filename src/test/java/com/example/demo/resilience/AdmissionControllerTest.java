@@ -0,0 +1,171 @@
+package com.example.demo.resilience;
+
+import com.example.demo.config.ApiAdmissionProperties;
+import com.example.demo.exception.AdmissionRejectedException;
+import com.example.demo.plan.GroupPlan;
+import com.example.demo.plan.TestPlans;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdmissionControllerTest {
+
+    private static final GroupPlan LOW = TestPlans.group("low", 0, 0);
+    private static final GroupPlan HIGH = TestPlans.group("high", 10, 0);
+
+    private final ApiAdmissionProperties properties = new ApiAdmissionProperties();
+    private final AdmissionController controller = new AdmissionController();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        // 1 aggregation chạy, 1 request chờ
+        properties.setAdaptive(false);
+        properties.setInitialLimit(1);
+        properties.setMinLimit(1);
+        properties.setMaxQueue(1);
+        properties.setMaxQueueWait(Duration.ofSeconds(30));
+
+        inject("properties", properties);
+        inject("apiExecutor", (Executor) Runnable::run);
+        inject("meterRegistry", new SimpleMeterRegistry());
+        controller.init();
+    }
+
+    @Test
+    void queuedRequestRunsWhenThePermitIsReleased() {
+        CompletableFuture<String> first = new CompletableFuture<>();
+        CompletableFuture<String> running = controller.admit(LOW, () -> first);
+
+        AtomicInteger started = new AtomicInteger();
+        CompletableFuture<String> queued = controller.admit(LOW, () -> {
+            started.incrementAndGet();
+            return CompletableFuture.completedFuture("second");
+        });
+        assertEquals(0, started.get());
+        assertEquals(1, controller.stats().get("queued"));
+
+        first.complete("first");
+
+        assertEquals("first", running.join());
+        assertEquals("second", queued.join());
+        assertEquals(0, controller.stats().get("inFlight"));
+    }
+
+    @Test
+    void higherPriorityEvictsTheLowestWaiter() {
+        controller.admit(LOW, CompletableFuture::new);
+        CompletableFuture<Object> lowWaiter = controller.admit(LOW, CompletableFuture::new);
+
+        CompletableFuture<Object> highWaiter = controller.admit(HIGH, CompletableFuture::new);
+
+        assertRejected(lowWaiter, AdmissionController.QUEUE_FULL, 503);
+        assertFalse(highWaiter.isDone());
+        // Cùng / thấp hơn ưu tiên của waiter còn lại → bị từ chối ngay
+        assertRejected(controller.admit(HIGH, CompletableFuture::new), AdmissionController.QUEUE_FULL, 503);
+    }
+
+    @Test
+    void waiterTimesOutWithoutStartingItsWork() {
+        properties.setMaxQueueWait(Duration.ofMillis(50));
+        controller.admit(LOW, CompletableFuture::new);
+
+        AtomicInteger started = new AtomicInteger();
+        CompletableFuture<Object> queued = controller.admit(LOW, () -> {
+            started.incrementAndGet();
+            return new CompletableFuture<>();
+        });
+
+        assertRejected(queued, AdmissionController.QUEUE_TIMEOUT, 503);
+        assertEquals(0, started.get());
+        assertEquals(0, controller.stats().get("queued"));
+    }
+
+    @Test
+    void grantedWaiterCancelsItsTimeout() {
+        CompletableFuture<Object> first = new CompletableFuture<>();
+        controller.admit(LOW, () -> first);
+        int before = AdmissionController.pendingTimeouts();
+
+        CompletableFuture<Object> queued = controller.admit(LOW, () -> CompletableFuture.completedFuture("ok"));
+        assertEquals(before + 1, AdmissionController.pendingTimeouts());
+
+        first.complete("done");
+
+        assertEquals("ok", queued.join());
+        assertEquals(before, AdmissionController.pendingTimeouts());
+    }
+
+    @Test
+    void groupOverItsQuotaGets429() {
+        GroupPlan limited = TestPlans.group("limited", 0, 1);
+
+        CompletableFuture<Object> first = new CompletableFuture<>();
+        controller.admit(limited, () -> first);
+
+        // Quota kiểm tra trước limit chung → 429 ngay, không vào queue
+        assertRejected(controller.admit(limited, CompletableFuture::new), AdmissionController.GROUP_LIMIT, 429);
+        assertEquals(0, controller.stats().get("queued"));
+
+        first.complete("done");
+        assertEquals("ok", controller.admit(limited, () -> CompletableFuture.completedFuture("ok")).join());
+    }
+
+    @Test
+    void synchronousFailureReleasesThePermitAndTheQuota() {
+        GroupPlan limited = TestPlans.group("limited", 0, 1);
+
+        assertThrows(IllegalArgumentException.class, () -> controller.admit(limited, () -> {
+            throw new IllegalArgumentException("bad request");
+        }));
+
+        assertEquals(0, controller.stats().get("inFlight"));
+        assertEquals("ok", controller.admit(limited, () -> CompletableFuture.completedFuture("ok")).join());
+    }
+
+    @Test
+    void synchronousFailureOfAQueuedRequestReleasesThePermit() {
+        CompletableFuture<Object> first = new CompletableFuture<>();
+        controller.admit(LOW, () -> first);
+        CompletableFuture<Object> queued = controller.admit(LOW, () -> {
+            throw new IllegalArgumentException("bad request");
+        });
+
+        first.complete("done");
+
+        CompletionException e = assertThrows(CompletionException.class, queued::join);
+        assertInstanceOf(IllegalArgumentException.class, e.getCause());
+        assertEquals(0, controller.stats().get("inFlight"));
+    }
+
+    private static void assertRejected(CompletableFuture<?> future, String reason, int status) {
+        try {
+            future.get(2, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            AdmissionRejectedException rejected = assertInstanceOf(AdmissionRejectedException.class, e.getCause());
+            assertEquals(reason, rejected.getReason());
+            assertEquals(status, rejected.getStatus());
+            return;
+        }
+        assertTrue(false, "request was not rejected");
+    }
+
+    private void inject(String name, Object value) throws Exception {
+        Field field = AdmissionController.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(controller, value);
+    }
+}
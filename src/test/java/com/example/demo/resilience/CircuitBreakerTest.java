@@ -0,0 +1,145 @@
+package com.example.demo.resilience;
+
+import com.example.demo.config.ApiConfigRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CircuitBreakerTest {
+
+    private static final long FAST = Duration.ofMillis(10).toNanos();
+    private static final long SLOW = Duration.ofSeconds(2).toNanos();
+
+    @Test
+    void staysClosedBelowMinimumCalls() {
+        CircuitBreaker breaker = breaker(Duration.ofSeconds(30));
+
+        for (int i = 0; i < 3; i++) {
+            breaker.onError(breaker.tryAcquire(), FAST);
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void opensAtTheFailureRateThreshold() {
+        CircuitBreaker breaker = breaker(Duration.ofSeconds(30));
+
+        breaker.onSuccess(breaker.tryAcquire(), FAST);
+        breaker.onSuccess(breaker.tryAcquire(), FAST);
+        breaker.onError(breaker.tryAcquire(), FAST);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        breaker.onError(breaker.tryAcquire(), FAST);
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertNull(breaker.tryAcquire());
+    }
+
+    @Test
+    void opensAtTheSlowCallRateThreshold() {
+        CircuitBreaker breaker = breaker(Duration.ofSeconds(30));
+
+        for (int i = 0; i < 4; i++) {
+            breaker.onSuccess(breaker.tryAcquire(), SLOW);
+        }
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    void halfOpenProbesCloseTheBreaker() throws Exception {
+        CircuitBreaker breaker = openBreaker(Duration.ofMillis(20));
+        Thread.sleep(40);
+
+        CircuitBreaker.Permit first = breaker.tryAcquire();
+        CircuitBreaker.Permit second = breaker.tryAcquire();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        // Chỉ halfOpenCalls probe được qua
+        assertNull(breaker.tryAcquire());
+
+        breaker.onSuccess(first, FAST);
+        breaker.onSuccess(second, FAST);
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void failedProbesReopenTheBreaker() throws Exception {
+        CircuitBreaker breaker = openBreaker(Duration.ofMillis(20));
+        Thread.sleep(40);
+
+        CircuitBreaker.Permit first = breaker.tryAcquire();
+        CircuitBreaker.Permit second = breaker.tryAcquire();
+        breaker.onError(first, FAST);
+        breaker.onSuccess(second, FAST);
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    void outcomeOfAnOlderGenerationIsIgnored() throws Exception {
+        CircuitBreaker breaker = breaker(Duration.ofMillis(20));
+        // Call chậm được admit khi còn CLOSED
+        CircuitBreaker.Permit stale = breaker.tryAcquire();
+        for (int i = 0; i < 4; i++) {
+            breaker.onError(breaker.tryAcquire(), FAST);
+        }
+        Thread.sleep(40);
+
+        CircuitBreaker.Permit probe = breaker.tryAcquire();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        // Không được tính là probe
+        breaker.onError(stale, FAST);
+        breaker.onError(stale, FAST);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        breaker.onSuccess(probe, FAST);
+        breaker.onSuccess(breaker.tryAcquire(), FAST);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void releasedProbeGivesItsSlotBack() throws Exception {
+        CircuitBreaker breaker = openBreaker(Duration.ofMillis(20));
+        Thread.sleep(40);
+
+        CircuitBreaker.Permit cancelled = breaker.tryAcquire();
+        CircuitBreaker.Permit second = breaker.tryAcquire();
+        assertNull(breaker.tryAcquire());
+
+        breaker.release(cancelled);
+        CircuitBreaker.Permit replacement = breaker.tryAcquire();
+        assertNotNull(replacement);
+
+        breaker.onSuccess(second, FAST);
+        breaker.onSuccess(replacement, FAST);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    private static CircuitBreaker openBreaker(Duration waitInOpen) {
+        CircuitBreaker breaker = breaker(waitInOpen);
+        for (int i = 0; i < 4; i++) {
+            breaker.onError(breaker.tryAcquire(), FAST);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        return breaker;
+    }
+
+    private static CircuitBreaker breaker(Duration waitInOpen) {
+        ApiConfigRegistry.CircuitBreakerConfig cfg = new ApiConfigRegistry.CircuitBreakerConfig();
+        cfg.setSlidingWindowSize(10);
+        cfg.setMinimumCalls(4);
+        cfg.setFailureRateThreshold(50);
+        cfg.setSlowCallRateThreshold(100);
+        cfg.setSlowCallDuration(Duration.ofSeconds(1));
+        cfg.setWaitInOpen(waitInOpen);
+        cfg.setHalfOpenCalls(2);
+        return new CircuitBreaker("demo.user", cfg);
+    }
+}
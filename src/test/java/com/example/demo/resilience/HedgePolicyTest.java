@@ -0,0 +1,149 @@
+package com.example.demo.resilience;
+
+import com.example.demo.config.ApiConfigRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HedgePolicyTest {
+
+    private final List<CompletableFuture<String>> calls = new CopyOnWriteArrayList<>();
+
+    // Mỗi lần gọi supplier = 1 request, test tự complete
+    private final Supplier<CompletableFuture<String>> call = () -> {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        calls.add(future);
+        return future;
+    };
+
+    @Test
+    void hedgeIsSentAfterTheDelayAndTheFirstResponseWins() throws Exception {
+        HedgeBudget budget = new HedgeBudget(1.0);
+        CompletableFuture<String> result = hedge(budget).execute(call);
+
+        waitForCalls(2);
+        calls.get(1).complete("hedge");
+
+        assertEquals("hedge", result.get(1, TimeUnit.SECONDS));
+        // Primary thua bị huỷ → request của nó bị abort
+        assertTrue(calls.get(0).isCancelled());
+        assertEquals(1L, budget.stats().get("hedgeWins"));
+    }
+
+    @Test
+    void primaryWinningCancelsTheHedge() throws Exception {
+        CompletableFuture<String> result = hedge(new HedgeBudget(1.0)).execute(call);
+
+        waitForCalls(2);
+        calls.get(0).complete("primary");
+
+        assertEquals("primary", result.get(1, TimeUnit.SECONDS));
+        assertTrue(calls.get(1).isCancelled());
+    }
+
+    @Test
+    void noHedgeWhenTheBudgetIsExhausted() throws Exception {
+        HedgeBudget budget = new HedgeBudget(0.0);
+        CompletableFuture<String> result = hedge(budget).execute(call);
+
+        Thread.sleep(100);
+        assertEquals(1, calls.size());
+        assertEquals(1L, budget.stats().get("rejectedByBudget"));
+
+        calls.get(0).complete("primary");
+        assertEquals("primary", result.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void primaryFailingBeforeTheDelayFailsWithoutHedging() throws Exception {
+        CompletableFuture<String> result = hedge(new HedgeBudget(1.0)).execute(call);
+
+        calls.get(0).completeExceptionally(new IOException("connection reset"));
+        CompletionException e = assertThrows(CompletionException.class, result::join);
+        assertInstanceOf(IOException.class, e.getCause());
+
+        Thread.sleep(100);
+        assertEquals(1, calls.size());
+    }
+
+    @Test
+    void failsOnlyWhenBothCallsFail() throws Exception {
+        CompletableFuture<String> result = hedge(new HedgeBudget(1.0)).execute(call);
+
+        waitForCalls(2);
+        calls.get(0).completeExceptionally(new IOException("primary"));
+        assertFalse(result.isDone());
+
+        calls.get(1).completeExceptionally(new IOException("hedge"));
+        CompletionException e = assertThrows(CompletionException.class, result::join);
+        // Lỗi của primary được báo
+        assertEquals("primary", e.getCause().getMessage());
+    }
+
+    @Test
+    void hedgeSurvivesAFailedPrimary() throws Exception {
+        CompletableFuture<String> result = hedge(new HedgeBudget(1.0)).execute(call);
+
+        waitForCalls(2);
+        calls.get(0).completeExceptionally(new IOException("primary"));
+        calls.get(1).complete("hedge");
+
+        assertEquals("hedge", result.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void cancellingTheResultCancelsBothCalls() throws Exception {
+        CompletableFuture<String> result = hedge(new HedgeBudget(1.0)).execute(call);
+
+        waitForCalls(2);
+        result.cancel(false);
+
+        assertTrue(calls.get(0).isCancelled());
+        assertTrue(calls.get(1).isCancelled());
+    }
+
+    @Test
+    void everyRequestHoldsItsOwnBulkheadPermit() throws Exception {
+        Bulkhead bulkhead = new Bulkhead(2);
+        SourceGuard guard = new SourceGuard("demo.user", null, bulkhead, new RetryPolicy(new ApiConfigRegistry.Source()),
+                hedge(new HedgeBudget(1.0)), Runnable::run, new SimpleMeterRegistry().counter("retries"));
+
+        CompletableFuture<String> result = guard.execute(call, null);
+
+        waitForCalls(2);
+        assertEquals(2, bulkhead.getActiveCalls());
+
+        calls.get(1).complete("hedge");
+        assertEquals("hedge", result.get(1, TimeUnit.SECONDS));
+        // Hedge xong, primary bị huỷ → cả 2 permit được trả
+        assertEquals(0, bulkhead.getActiveCalls());
+    }
+
+    private static HedgePolicy hedge(HedgeBudget budget) {
+        ApiConfigRegistry.HedgeConfig cfg = new ApiConfigRegistry.HedgeConfig();
+        cfg.setDelay(Duration.ofMillis(20));
+        return new HedgePolicy("demo.user", cfg, budget, Runnable::run);
+    }
+
+    private void waitForCalls(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (calls.size() < count) {
+            assertTrue(System.nanoTime() < deadline, "hedge not sent");
+            Thread.sleep(5);
+        }
+    }
+}
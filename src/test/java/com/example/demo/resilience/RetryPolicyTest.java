@@ -0,0 +1,106 @@
+package com.example.demo.resilience;
+
+import com.example.demo.config.ApiConfigRegistry;
+import com.example.demo.exception.ResponseTooLargeException;
+import org.apache.camel.http.base.HttpOperationFailedException;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RetryPolicyTest {
+
+    @Test
+    void retriesTransientErrorsOfIdempotentSources() {
+        RetryPolicy policy = new RetryPolicy(source("rest", null));
+
+        assertTrue(policy.shouldRetry(new SocketTimeoutException("Read timed out"), 1));
+        assertTrue(policy.shouldRetry(http(503), 1));
+        assertTrue(policy.shouldRetry(new CompletionException(http(429)), 1));
+        assertTrue(policy.shouldRetry(new SQLTransientConnectionException("pool"), 1));
+    }
+
+    @Test
+    void doesNotRetryPermanentErrors() {
+        RetryPolicy policy = new RetryPolicy(source("rest", null));
+
+        assertFalse(policy.shouldRetry(http(404), 1));
+        assertFalse(policy.shouldRetry(http(500), 1));
+        assertFalse(policy.shouldRetry(new UnknownHostException("backend"), 1));
+        assertFalse(policy.shouldRetry(new IllegalStateException("Invalid JSON response"), 1));
+        assertFalse(policy.shouldRetry(new SQLException("syntax error", "42601"), 1));
+    }
+
+    @Test
+    void stopsAfterMaxRetries() {
+        RetryPolicy policy = new RetryPolicy(source("rest", null));
+
+        assertTrue(policy.shouldRetry(http(503), 3));
+        assertFalse(policy.shouldRetry(http(503), 4));
+    }
+
+    @Test
+    void soapAndWritesAreNotRetriedByDefault() {
+        assertFalse(new RetryPolicy(source("soap", null)).shouldRetry(http(503), 1));
+        assertFalse(new RetryPolicy(source("db", "UPDATE users SET name = :?name"))
+                .shouldRetry(new SQLTransientConnectionException("pool"), 1));
+        assertTrue(new RetryPolicy(source("db", "  select * from users"))
+                .shouldRetry(new SQLTransientConnectionException("pool"), 1));
+    }
+
+    @Test
+    void backoffGrowsByTheMultiplier() {
+        RetryPolicy policy = new RetryPolicy(source("rest", null));
+
+        assertEquals(100L, policy.delayAfter(1));
+        assertEquals(200L, policy.delayAfter(2));
+        assertEquals(400L, policy.delayAfter(3));
+    }
+
+    @Test
+    void backendFailuresAreIoTimeoutsAndServerErrors() {
+        assertTrue(RetryPolicy.isBackendFailure(new SocketTimeoutException("Read timed out")));
+        assertTrue(RetryPolicy.isBackendFailure(new CompletionException(new TimeoutException())));
+        assertTrue(RetryPolicy.isBackendFailure(http(500)));
+        assertTrue(RetryPolicy.isBackendFailure(http(408)));
+        assertTrue(RetryPolicy.isBackendFailure(http(429)));
+        assertTrue(RetryPolicy.isBackendFailure(new CannotGetJdbcConnectionException("pool exhausted")));
+        assertTrue(RetryPolicy.isBackendFailure(new SQLException("connection reset", "08006")));
+    }
+
+    @Test
+    void callerAndConfigErrorsAreNotBackendFailures() {
+        assertFalse(RetryPolicy.isBackendFailure(http(404)));
+        assertFalse(RetryPolicy.isBackendFailure(new IllegalStateException("Invalid JSON response")));
+        assertFalse(RetryPolicy.isBackendFailure(new ResponseTooLargeException("GET /users/1", 1024)));
+        assertFalse(RetryPolicy.isBackendFailure(
+                new BadSqlGrammarException("query", "SELEC 1", new SQLException("syntax error", "42601"))));
+        assertFalse(RetryPolicy.isBackendFailure(new IllegalArgumentException("Missing variable id")));
+    }
+
+    private static HttpOperationFailedException http(int status) {
+        return new HttpOperationFailedException("http://backend/users/1", status, "status " + status, null, Map.of(), "");
+    }
+
+    private static ApiConfigRegistry.Source source(String type, String query) {
+        ApiConfigRegistry.RetryConfig retry = new ApiConfigRegistry.RetryConfig();
+        retry.setDelay(Duration.ofMillis(100));
+        ApiConfigRegistry.Source source = new ApiConfigRegistry.Source();
+        source.setType(type);
+        source.setQuery(query);
+        source.setRetry(retry);
+        return source;
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.demo.resilience;
+
+import com.example.demo.config.ApiConfigRegistry;
+import com.example.demo.exception.SourceUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLSyntaxErrorException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SourceGuardTest {
+
+    @Test
+    void admissionHoldsTheBulkheadPermitUntilCompleted() {
+        Bulkhead bulkhead = new Bulkhead(1);
+        SourceGuard guard = guard(breaker(), bulkhead);
+
+        SourceGuard.Admission admission = guard.admit();
+        assertEquals(1, bulkhead.getActiveCalls());
+
+        admission.complete(null);
+        // Complete lần 2 (serialize xong sau khi đã close) không trả permit thêm lần nữa
+        admission.complete(new SQLTransientConnectionException("pool exhausted"));
+        assertEquals(0, bulkhead.getActiveCalls());
+    }
+
+    @Test
+    void admitIsRejectedWhenTheBulkheadIsFull() {
+        Bulkhead bulkhead = new Bulkhead(1);
+        bulkhead.tryAcquire();
+
+        assertThrows(SourceUnavailableException.class, () -> guard(breaker(), bulkhead).admit());
+        assertEquals(1, bulkhead.getActiveCalls());
+    }
+
+    @Test
+    void admissionFailuresOpenTheBreaker() {
+        CircuitBreaker breaker = breaker();
+        SourceGuard guard = guard(breaker, new Bulkhead(1));
+
+        // Lỗi SQL không phải lỗi backend (cú pháp) / kết quả bị bỏ → không tính
+        for (int i = 0; i < 4; i++) {
+            guard.admit().complete(new SQLSyntaxErrorException("syntax"));
+            guard.admit().complete(new CancellationException("discarded"));
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        // 2/4 call cuối lỗi → đạt ngưỡng 50%
+        for (int i = 0; i < 2; i++) {
+            guard.admit().complete(new SQLTransientConnectionException("timeout"));
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        assertThrows(SourceUnavailableException.class, guard::admit);
+    }
+
+    private static SourceGuard guard(CircuitBreaker breaker, Bulkhead bulkhead) {
+        return new SourceGuard("demo.user", breaker, bulkhead, new RetryPolicy(new ApiConfigRegistry.Source()),
+                null, Runnable::run, new SimpleMeterRegistry().counter("retries"));
+    }
+
+    private static CircuitBreaker breaker() {
+        ApiConfigRegistry.CircuitBreakerConfig cfg = new ApiConfigRegistry.CircuitBreakerConfig();
+        cfg.setSlidingWindowSize(4);
+        cfg.setMinimumCalls(4);
+        cfg.setFailureRateThreshold(50);
+        cfg.setWaitInOpen(Duration.ofSeconds(30));
+        return new CircuitBreaker("demo.user", cfg);
+    }
+}
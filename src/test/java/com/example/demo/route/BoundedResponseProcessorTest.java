@@ -0,0 +1,210 @@
+package com.example.demo.route;
+
+import com.example.demo.config.HttpEndpointResolver;
+import com.example.demo.exception.ResponseTooLargeException;
+import com.example.demo.extractor.JsonStreamExtractor;
+import com.example.demo.extractor.ResponseReader;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.camel.Exchange;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.support.DefaultExchange;
+import org.apache.hc.client5.http.classic.methods.HttpGet;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.io.EofSensorInputStream;
+import org.apache.hc.core5.http.io.EofSensorWatcher;
+import org.apache.hc.core5.pool.PoolStats;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BoundedResponseProcessorTest {
+
+    private static final String USER = "{\"id\": 1, \"company\": {\"name\": \"Acme\"}, \"tail\": \"" + "x".repeat(200) + "\"}";
+
+    private final BoundedResponseProcessor processor = new BoundedResponseProcessor();
+
+    @Test
+    void readsBodyIntoBytesWithoutReader() throws Exception {
+        RecordingWatcher watcher = new RecordingWatcher();
+        Exchange exchange = exchange(sensor(USER, watcher), 1024, null);
+
+        processor.process(exchange);
+
+        assertArrayEquals(USER.getBytes(StandardCharsets.UTF_8), exchange.getMessage().getBody(byte[].class));
+        assertTrue(watcher.eof);
+        assertFalse(watcher.aborted);
+    }
+
+    @Test
+    void drainsTheRestOfTheBodyAfterTheReader() throws Exception {
+        RecordingWatcher watcher = new RecordingWatcher();
+        ResponseReader reader = JsonStreamExtractor.compile("$.company")::extract;
+        Exchange exchange = exchange(sensor(USER, watcher), 1024, reader);
+
+        processor.process(exchange);
+
+        assertEquals(Map.of("name", "Acme"), exchange.getMessage().getBody());
+        // Đọc tới EOF qua stream giới hạn, parser không close stream
+        assertTrue(watcher.eof);
+        assertFalse(watcher.closed);
+        assertFalse(watcher.aborted);
+    }
+
+    @Test
+    void abortsTheConnectionWhenTheBodyExceedsTheLimit() {
+        RecordingWatcher watcher = new RecordingWatcher();
+        Exchange exchange = exchange(sensor(USER, watcher), 64, null);
+
+        assertThrows(ResponseTooLargeException.class, () -> processor.process(exchange));
+        assertTrue(watcher.aborted);
+        assertFalse(watcher.eof);
+    }
+
+    @Test
+    void tailOutsideThePathCountsTowardsTheLimit() {
+        RecordingWatcher watcher = new RecordingWatcher();
+        ResponseReader reader = JsonStreamExtractor.compile("$.company")::extract;
+        // 1 buffer của parser đủ chứa company nhưng không chứa cả body
+        String body = "{\"company\": {\"name\": \"Acme\"}, \"tail\": \"" + "x".repeat(20_000) + "\"}";
+        Exchange exchange = exchange(sensor(body, watcher), 10_000, reader);
+
+        assertThrows(ResponseTooLargeException.class, () -> processor.process(exchange));
+        assertTrue(watcher.aborted);
+    }
+
+    @Test
+    void abortsTheConnectionWhenTheBodyIsInvalid() {
+        RecordingWatcher watcher = new RecordingWatcher();
+        ResponseReader reader = JsonStreamExtractor.compile("$.company")::extract;
+        // Lỗi nằm trước EOF → phần sau không được drain
+        Exchange exchange = exchange(sensor("{\"company\": ]" + " ".repeat(20_000), watcher), 100_000, reader);
+
+        assertThrows(IllegalStateException.class, () -> processor.process(exchange));
+        assertTrue(watcher.aborted);
+    }
+
+    @Test
+    void rejectsByContentLengthBeforeReading() {
+        RecordingWatcher watcher = new RecordingWatcher();
+        Exchange exchange = exchange(sensor(USER, watcher), 64, null);
+        exchange.getMessage().setHeader("Content-Length", String.valueOf(USER.length()));
+
+        assertThrows(ResponseTooLargeException.class, () -> processor.process(exchange));
+        assertTrue(watcher.aborted);
+        assertEquals(0L, watcher.read);
+    }
+
+    @Test
+    void releasesOrAbortsPooledConnectionsOfARealClient() throws Exception {
+        byte[] large = ("[" + "\"0123456789\",".repeat(10_000) + "0]").getBytes(StandardCharsets.UTF_8);
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/user", http -> respond(http, USER.getBytes(StandardCharsets.UTF_8), false));
+        server.createContext("/large", http -> respond(http, large, true));
+        server.start();
+
+        PoolingHttpClientConnectionManager manager = PoolingHttpClientConnectionManagerBuilder.create().build();
+        try (CloseableHttpClient client = HttpClients.custom().setConnectionManager(manager).build()) {
+            String origin = "http://127.0.0.1:" + server.getAddress().getPort();
+
+            ResponseReader reader = JsonStreamExtractor.compile("$.company")::extract;
+            Exchange ok = exchange(open(client, origin + "/user"), 1024, reader);
+            processor.process(ok);
+
+            assertEquals(Map.of("name", "Acme"), ok.getMessage().getBody());
+            // Body đọc hết → connection quay lại pool
+            assertStats(manager.getTotalStats(), 0, 1);
+
+            Exchange tooLarge = exchange(open(client, origin + "/large"), 1024, null);
+            assertThrows(ResponseTooLargeException.class, () -> processor.process(tooLarge));
+
+            // Connection bị abort, không drain phần body còn lại
+            assertStats(manager.getTotalStats(), 0, 0);
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    private static void respond(com.sun.net.httpserver.HttpExchange http, byte[] body, boolean chunked) {
+        try (http; OutputStream out = http.getResponseBody()) {
+            http.getResponseHeaders().set("Content-Type", "application/json");
+            http.sendResponseHeaders(200, chunked ? 0 : body.length);
+            out.write(body);
+        } catch (Exception ignored) {
+            // Client abort giữa chừng
+        }
+    }
+
+    private static InputStream open(CloseableHttpClient client, String url) throws Exception {
+        ClassicHttpResponse response = client.executeOpen(null, new HttpGet(url), null);
+        return response.getEntity().getContent();
+    }
+
+    private static void assertStats(PoolStats stats, int leased, int available) {
+        assertEquals(leased, stats.getLeased(), "leased");
+        assertEquals(available, stats.getAvailable(), "available");
+    }
+
+    private static Exchange exchange(InputStream body, long maxBytes, ResponseReader reader) {
+        Exchange exchange = new DefaultExchange(new DefaultCamelContext());
+        exchange.getMessage().setBody(body);
+        exchange.getMessage().setHeader(Exchange.HTTP_URI, "http://backend/users/1");
+        exchange.setProperty(HttpEndpointResolver.MAX_RESPONSE_BYTES_PROPERTY, maxBytes);
+        if (reader != null) {
+            exchange.setProperty(HttpEndpointResolver.RESPONSE_READER_PROPERTY, reader);
+        }
+        return exchange;
+    }
+
+    private static EofSensorInputStream sensor(String body, RecordingWatcher watcher) {
+        InputStream in = new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                int n = super.read(b, off, len);
+                watcher.read += Math.max(0, n);
+                return n;
+            }
+        };
+        return new EofSensorInputStream(in, watcher);
+    }
+
+    private static class RecordingWatcher implements EofSensorWatcher {
+
+        private boolean eof;
+        private boolean closed;
+        private boolean aborted;
+        private long read;
+
+        @Override
+        public boolean eofDetected(InputStream wrapped) {
+            eof = true;
+            return true;
+        }
+
+        @Override
+        public boolean streamClosed(InputStream wrapped) {
+            closed = true;
+            return true;
+        }
+
+        @Override
+        public boolean streamAbort(InputStream wrapped) {
+            aborted = true;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.demo.route;
+
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.camel.Exchange;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.support.DefaultExchange;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StreamedResponseBindingTest {
+
+    private final StreamedResponseBinding binding = new StreamedResponseBinding();
+
+    private final List<String> calls = new ArrayList<>();
+
+    // Ghi lại mọi method được gọi trên response
+    private final HttpServletResponse response = (HttpServletResponse) Proxy.newProxyInstance(
+            getClass().getClassLoader(), new Class<?>[]{HttpServletResponse.class}, (proxy, method, args) -> {
+                calls.add(method.getName() + (args != null && args.length > 0 ? " " + args[0] : ""));
+                return method.getReturnType() == boolean.class ? false : null;
+            });
+
+    @Test
+    void streamedExchangeIsNotWrittenAgain() throws Exception {
+        Exchange exchange = new DefaultExchange(new DefaultCamelContext());
+        exchange.setProperty(StreamingAggregateWriter.STREAMED_PROPERTY, true);
+        exchange.getMessage().setHeader("X-Leak", "value");
+        exchange.setException(new IllegalStateException("failed after the first byte"));
+
+        binding.writeResponse(exchange, response);
+
+        assertEquals(List.of(), calls);
+    }
+
+    @Test
+    void regularExchangeIsWritten() throws Exception {
+        Exchange exchange = new DefaultExchange(new DefaultCamelContext());
+        exchange.getMessage().setHeader(Exchange.HTTP_RESPONSE_CODE, 204);
+
+        binding.writeResponse(exchange, response);
+
+        assertTrue(calls.contains("setStatus 204"), calls.toString());
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.demo.service;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.hc.client5.http.classic.methods.HttpGet;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AbortableCallTest {
+
+    @Test
+    void expiredDeadlineFailsTheCallAndCancelsTheRequest() throws Exception {
+        AbortableCall call = new AbortableCall(Deadline.after(50));
+        AtomicInteger cancelled = new AtomicInteger();
+        call.attach(cancelled::incrementAndGet);
+
+        CompletableFuture<Object> future = call.bind(new CompletableFuture<>());
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(2, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, e.getCause());
+        assertTrue(call.isAborted());
+        assertEquals(1, cancelled.get());
+    }
+
+    @Test
+    void cancellingTheFutureCancelsTheRequest() {
+        AbortableCall call = new AbortableCall(null);
+        AtomicInteger cancelled = new AtomicInteger();
+        call.attach(cancelled::incrementAndGet);
+
+        CompletableFuture<Object> future = call.bind(new CompletableFuture<>());
+        future.cancel(false);
+
+        assertTrue(call.isAborted());
+        assertEquals(1, cancelled.get());
+    }
+
+    @Test
+    void requestAttachedAfterAbortIsCancelledRightAway() {
+        AbortableCall call = new AbortableCall(null);
+        call.bind(new CompletableFuture<>()).cancel(false);
+        AtomicInteger cancelled = new AtomicInteger();
+
+        call.attach(cancelled::incrementAndGet);
+
+        assertEquals(1, cancelled.get());
+    }
+
+    @Test
+    void successfulCallIsNotAborted() throws Exception {
+        AbortableCall call = new AbortableCall(Deadline.after(50));
+        AtomicInteger cancelled = new AtomicInteger();
+        call.attach(cancelled::incrementAndGet);
+
+        CompletableFuture<Object> future = call.bind(new CompletableFuture<>());
+        future.complete("value");
+        Thread.sleep(100);
+
+        assertFalse(call.isAborted());
+        assertEquals(0, cancelled.get());
+        assertEquals("value", future.join());
+    }
+
+    @Test
+    void extendedSharedDeadlineKeepsTheCallAlive() throws Exception {
+        Deadline shared = Deadline.after(50).shared();
+        AbortableCall call = new AbortableCall(shared);
+        CompletableFuture<Object> future = call.bind(new CompletableFuture<>());
+
+        // Request khác join fetch chung với budget dài hơn
+        shared.extendTo(Deadline.after(300));
+        Thread.sleep(150);
+        assertFalse(future.isDone());
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(2, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, e.getCause());
+    }
+
+    @Test
+    void abortUnblocksARequestWaitingForTheResponse() throws Exception {
+        CountDownLatch hang = new CountDownLatch(1);
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/slow", http -> {
+            try {
+                hang.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException ignored) {
+                Thread.currentThread().interrupt();
+            }
+            http.close();
+        });
+        server.start();
+
+        try (CloseableHttpClient client = HttpClients.createDefault()) {
+            HttpGet request = new HttpGet("http://127.0.0.1:" + server.getAddress().getPort() + "/slow");
+            AbortableCall call = new AbortableCall(Deadline.after(100));
+            call.attach(request::cancel);
+
+            CountDownLatch returned = new CountDownLatch(1);
+            CompletableFuture<Object> future = call.bind(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return client.execute(request, response -> EntityUtils.toString(response.getEntity()));
+                } catch (Exception e) {
+                    throw new CompletionException(e);
+                } finally {
+                    returned.countDown();
+                }
+            }));
+
+            assertThrows(CompletionException.class, future::join);
+            assertTrue(request.isCancelled());
+            // Thread gọi HTTP được giải phóng ngay, không chờ server
+            assertTrue(returned.await(2, TimeUnit.SECONDS));
+        } finally {
+            hang.countDown();
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void cancelledFutureReportsCancellation() {
+        AbortableCall call = new AbortableCall(null);
+        CompletableFuture<Object> future = call.bind(new CompletableFuture<>());
+        future.cancel(false);
+
+        assertThrows(CancellationException.class, future::join);
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SingleFlightTest {
+
+    @Test
+    void concurrentCallersShareOneExecution() {
+        SingleFlight flight = new SingleFlight(false);
+        CompletableFuture<Object> shared = new CompletableFuture<>();
+        AtomicInteger calls = new AtomicInteger();
+
+        CompletableFuture<Object> first = flight.execute("GET /a", () -> {
+            calls.incrementAndGet();
+            return shared;
+        });
+        CompletableFuture<Object> second = flight.execute("GET /a", () -> {
+            calls.incrementAndGet();
+            return CompletableFuture.completedFuture("other");
+        });
+        shared.complete("value");
+
+        assertEquals(1, calls.get());
+        assertEquals("value", first.join());
+        assertEquals("value", second.join());
+        assertEquals(0, flight.inFlight());
+    }
+
+    @Test
+    void cancellingOneCallerDoesNotCancelTheSharedCall() {
+        SingleFlight flight = new SingleFlight(false);
+        CompletableFuture<Object> shared = new CompletableFuture<>();
+
+        CompletableFuture<Object> first = flight.execute("GET /a", () -> shared);
+        CompletableFuture<Object> second = flight.execute("GET /a", () -> shared);
+        first.cancel(false);
+        shared.complete("value");
+
+        assertFalse(shared.isCancelled());
+        assertEquals("value", second.join());
+    }
+
+    @Test
+    void sharedCallRunsUntilTheLatestCallerDeadline() {
+        SingleFlight flight = new SingleFlight(false);
+        AtomicReference<Deadline> used = new AtomicReference<>();
+        Deadline leader = Deadline.after(100);
+
+        flight.execute("GET /a", leader, deadline -> {
+            used.set(deadline);
+            return new CompletableFuture<>();
+        });
+        flight.execute("GET /a", Deadline.after(5_000), deadline -> new CompletableFuture<>());
+
+        assertTrue(used.get().remainingMillis() > 1_000);
+        // Deadline của request đầu không đổi
+        assertTrue(leader.remainingMillis() <= 100);
+    }
+
+    @Test
+    void callerWithoutDeadlineLiftsTheSharedDeadline() {
+        SingleFlight flight = new SingleFlight(false);
+        AtomicReference<Deadline> used = new AtomicReference<>();
+
+        flight.execute("GET /a", Deadline.after(100), deadline -> {
+            used.set(deadline);
+            return new CompletableFuture<>();
+        });
+        flight.execute("GET /a", null, deadline -> new CompletableFuture<>());
+
+        assertTrue(used.get().remainingMillis() > TimeUnit.DAYS.toMillis(1));
+    }
+
+    @Test
+    void leaderWithoutDeadlineRunsUnbounded() {
+        SingleFlight flight = new SingleFlight(false);
+        AtomicReference<Deadline> used = new AtomicReference<>(Deadline.after(1));
+
+        flight.execute("GET /a", null, deadline -> {
+            used.set(deadline);
+            return new CompletableFuture<>();
+        });
+
+        assertNull(used.get());
+    }
+
+    @Test
+    void memoizedResultIsKept() {
+        SingleFlight flight = new SingleFlight(true);
+        AtomicInteger calls = new AtomicInteger();
+
+        flight.execute("GET /a", () -> CompletableFuture.completedFuture(calls.incrementAndGet()));
+        Object second = flight.execute("GET /a", () -> CompletableFuture.completedFuture(calls.incrementAndGet())).join();
+
+        assertEquals(1, second);
+        assertEquals(1, flight.inFlight());
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.demo.template;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SqlQueryTemplateTest {
+
+    @Test
+    void placeholdersBecomeNamedParameters() {
+        SqlQueryTemplate query = SqlQueryTemplate.compile("SELECT * FROM users WHERE id = {id} AND org = {org}", null);
+
+        assertEquals("SELECT * FROM users WHERE id = :?id AND org = :?org", query.getSql());
+        assertEquals("SELECT * FROM users WHERE id = ? AND org = ?", query.getJdbcSql());
+        assertEquals(List.of("id", "org"), query.getJdbcParameterNames());
+        assertEquals(Map.of("id", "1", "org", "acme"), query.bind(Map.of("id", "1", "org", "acme")));
+    }
+
+    @Test
+    void wholeStringLiteralIsUnquoted() {
+        SqlQueryTemplate query = SqlQueryTemplate.compile("SELECT * FROM users WHERE name = '{name}'", null);
+
+        assertEquals("SELECT * FROM users WHERE name = :?name", query.getSql());
+    }
+
+    @Test
+    void placeholderInsideALargerLiteralIsRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> SqlQueryTemplate.compile("SELECT * FROM users WHERE name LIKE '%{name}%'", null));
+    }
+
+    @Test
+    void bracesInLiteralsThatAreNotPlaceholdersAreKept() {
+        SqlQueryTemplate query = SqlQueryTemplate.compile(
+                "SELECT '{}' AS empty, 'it''s' AS quote FROM users WHERE id = {id}", null);
+
+        assertEquals("SELECT '{}' AS empty, 'it''s' AS quote FROM users WHERE id = :?id", query.getSql());
+    }
+
+    @Test
+    void commentsAreCopiedUnchanged() {
+        SqlQueryTemplate query = SqlQueryTemplate.compile(
+                "SELECT * FROM users -- user's row by {id}\nWHERE id = {id} /* not {org}, it's */ AND active", null);
+
+        assertEquals("SELECT * FROM users -- user's row by {id}\nWHERE id = :?id /* not {org}, it's */ AND active",
+                query.getSql());
+        assertEquals(List.of("id"), query.getJdbcParameterNames());
+        assertEquals(Map.of("id", "1"), query.bind(Map.of("id", "1")));
+    }
+
+    @Test
+    void repeatedPlaceholderIsBoundOnce() {
+        SqlQueryTemplate query = SqlQueryTemplate.compile(
+                "SELECT * FROM orders WHERE buyer = {id} OR seller = {id}", null);
+
+        assertEquals("SELECT * FROM orders WHERE buyer = :?id OR seller = :?id", query.getSql());
+        assertEquals(List.of("id", "id"), query.getJdbcParameterNames());
+        assertEquals(Map.of("id", "7"), query.bind(Map.of("id", "7")));
+    }
+
+    @Test
+    void referenceIsBoundFromTheSourceValue() {
+        SqlQueryTemplate query = SqlQueryTemplate.compile(
+                "SELECT * FROM companies WHERE name = {user.company.name}", null);
+
+        assertEquals("SELECT * FROM companies WHERE name = :?user_company_name", query.getSql());
+        assertEquals(Map.of("user_company_name", "Acme"), query.bind(Map.of("user.company.name", "Acme")));
+    }
+
+    @Test
+    void placeholdersMappingToTheSameParameterAreRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> SqlQueryTemplate.compile("SELECT * FROM t WHERE a = {user-id} AND b = {user_id}", null));
+    }
+
+    @Test
+    void missingVariableFailsTheBind() {
+        SqlQueryTemplate query = SqlQueryTemplate.compile("SELECT * FROM users WHERE id = {id}", null);
+
+        assertThrows(IllegalArgumentException.class, () -> query.bind(Map.of()));
+    }
+
+    @Test
+    void expandLeavesParametersWithTheSamePrefixAlone() {
+        SqlQueryTemplate query = SqlQueryTemplate.compile(
+                "SELECT * FROM t WHERE id IN ({id}) AND kind IN ({ids}) AND idx = {idx}", null);
+
+        assertEquals("SELECT * FROM t WHERE id IN (:?id_0, :?id_1) AND kind IN (:?ids) AND idx = :?idx",
+                query.expand("id", 2));
+    }
+}